@@ -0,0 +1,28 @@
+package game;
+
+/**
+ * Stockage en mémoire: un octet par case dans un tableau.
+ *
+ * @author Nicolas Vincent
+ * @see TerrainStorage
+ */
+public class ArrayTerrainStorage implements TerrainStorage {
+    private final byte[] terrains;
+
+    /**
+     * @param nbCells nombre de cases de la carte
+     */
+    public ArrayTerrainStorage(final int nbCells) {
+        this.terrains = new byte[nbCells];
+    }
+
+    @Override
+    public byte get(final int position) {
+        return this.terrains[position];
+    }
+
+    @Override
+    public void set(final int position, final byte code) {
+        this.terrains[position] = code;
+    }
+}
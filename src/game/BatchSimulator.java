@@ -0,0 +1,184 @@
+package game;
+
+import java.io.FileNotFoundException;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.events.EventAdderParallel;
+import game.events.EventManager;
+import game.pathfinding.CachingPathfinding;
+import game.pathfinding.JumpPointSearch;
+import game.pathfinding.Pathfinding;
+import io.LecteurDonnees;
+import strategie.Strategie;
+import strategie.StrategieElementaire;
+import strategie.StrategieEvoluee;
+
+/**
+ * Exécute une simulation sans interface graphique jusqu'à ce que tous les
+ * incendies soient éteints ou qu'une date maximale soit atteinte. Permet
+ * d'évaluer une stratégie sans passer par la boucle de GUISimulator. La date
+ * courante avance directement jusqu'au prochain event.
+ *
+ * Utilisation: java game.BatchSimulator carte.map [elementaire|evoluee] [dateMax]
+ *
+ * @see Simulateur#Simulateur(DonneesSimulation, EventManager, Strategie)
+ * @see Strategie
+ * @see Pathfinding
+ * @author Nicolas Vincent
+ */
+public class BatchSimulator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchSimulator.class);
+
+    /**
+     * Date maximale par défaut, en secondes
+     */
+    public static final long DEFAULT_MAX_DATE = 10_000_000L;
+
+    /**
+     * Résultat d'une exécution
+     */
+    public static class Rapport {
+        private final boolean incendiesEteints;
+        private final long dateSimulee;
+        private final double eauDeversee;
+        private final long eventsExecutes;
+        private final long iterations;
+        private final long dureeReelle;
+
+        public Rapport(final boolean incendiesEteints, final long dateSimulee, final double eauDeversee,
+                final long eventsExecutes, final long iterations, final long dureeReelle) {
+            this.incendiesEteints = incendiesEteints;
+            this.dateSimulee = dateSimulee;
+            this.eauDeversee = eauDeversee;
+            this.eventsExecutes = eventsExecutes;
+            this.iterations = iterations;
+            this.dureeReelle = dureeReelle;
+        }
+
+        /**
+         * @return false si la date maximale a été atteinte avant l'extinction
+         */
+        public boolean isIncendiesEteints() {
+            return incendiesEteints;
+        }
+
+        /**
+         * @return date du dernier event exécuté, en secondes
+         */
+        public long getDateSimulee() {
+            return dateSimulee;
+        }
+
+        /**
+         * @return volume d'eau déversé, en litres
+         */
+        public double getEauDeversee() {
+            return eauDeversee;
+        }
+
+        public long getEventsExecutes() {
+            return eventsExecutes;
+        }
+
+        /**
+         * @return nombre d'appels à Simulateur#next()
+         */
+        public long getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return temps d'exécution réel, en nanosecondes
+         */
+        public long getDureeReelle() {
+            return dureeReelle;
+        }
+
+        @Override
+        public String toString() {
+            return "Incendies éteints: " + incendiesEteints + ", temps simulé: " + dateSimulee + " s, eau déversée: "
+                    + eauDeversee + " L, events exécutés: " + eventsExecutes + ", itérations: " + iterations + ", temps réel: "
+                    + (dureeReelle / 1_000_000) + " ms";
+        }
+    }
+
+    private final DonneesSimulation donneesSimulation;
+    private final EventManager eventManager;
+    private final Simulateur simulateur;
+
+    /**
+     * @param fichierDonnees     carte à charger
+     * @param pathfindingFactory crée l'algorithme de plus court chemin à partir des
+     *                           données de la simulation
+     * @param strategieFactory   crée la stratégie à partir de l'algorithme de plus
+     *                           court chemin
+     * @throws FileNotFoundException
+     * @throws DataFormatException
+     * @see LecteurDonnees#lire(String)
+     * @see EventAdderParallel
+     */
+    public BatchSimulator(final String fichierDonnees,
+            final Function<DonneesSimulation, Pathfinding> pathfindingFactory,
+            final Function<Pathfinding, Strategie> strategieFactory)
+            throws FileNotFoundException, DataFormatException {
+        this.donneesSimulation = LecteurDonnees.lire(fichierDonnees);
+        final Strategie strategie = strategieFactory.apply(pathfindingFactory.apply(this.donneesSimulation));
+        this.eventManager = new EventManager(this.donneesSimulation, strategie);
+        strategie.setEventAdder(new EventAdderParallel(this.donneesSimulation, this.eventManager));
+
+        this.simulateur = new Simulateur(this.donneesSimulation, this.eventManager, strategie);
+        this.simulateur.setTimeAdvance(Simulateur.TimeAdvance.NEXT_EVENT, 0);
+    }
+
+    /**
+     * Avance la simulation jusqu'à l'extinction de tous les incendies ou jusqu'à
+     * maxDate.
+     *
+     * @param maxDate date simulée maximale, en secondes
+     * @return Rapport de l'exécution
+     * @see Simulateur#next()
+     * @see DonneesSimulation#isIncendiesEteints()
+     */
+    public Rapport run(final long maxDate) {
+        final long start = System.nanoTime();
+        long iterations = 0;
+        while (!this.donneesSimulation.isIncendiesEteints() && this.eventManager.getCurrentDate() <= maxDate) {
+            this.simulateur.next();
+            iterations++;
+        }
+        final Rapport rapport = new Rapport(this.donneesSimulation.isIncendiesEteints(),
+                this.eventManager.getLastEventDate(), this.donneesSimulation.getEauDeversee(),
+                this.eventManager.getExecutedEventsCount(), iterations, System.nanoTime() - start);
+        LOGGER.info("{}", rapport);
+        return rapport;
+    }
+
+    public Simulateur getSimulateur() {
+        return simulateur;
+    }
+
+    public static void main(final String[] args) {
+        if (args.length < 1) {
+            System.out.println("Syntaxe: java game.BatchSimulator <nomDeFichier> [elementaire|evoluee] [dateMax]");
+            System.exit(1);
+        }
+        final Function<Pathfinding, Strategie> strategieFactory = (args.length > 1 && args[1].equals("elementaire"))
+                ? StrategieElementaire::new
+                : StrategieEvoluee::new;
+        final long maxDate = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_MAX_DATE;
+
+        try {
+            final BatchSimulator batchSimulator = new BatchSimulator(args[0],
+                    donnees -> new CachingPathfinding(new JumpPointSearch(donnees)), strategieFactory);
+            System.out.println(batchSimulator.run(maxDate));
+        } catch (final FileNotFoundException e) {
+            System.out.println("fichier " + args[0] + " inconnu ou illisible");
+        } catch (final DataFormatException e) {
+            System.out.println("\n\t**format du fichier " + args[0] + " invalide: " + e.getMessage());
+        }
+    }
+}
@@ -3,9 +3,15 @@ package game;
 // import org.slf4j.Logger;
 // import org.slf4j.LoggerFactory;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntConsumer;
 
 /**
  * Carte représente le terrain.
@@ -21,9 +27,58 @@ public class Carte {
     private final int nbLignes, nbColonnes, tailleCases;
 
     /**
-     * A chaque position correspond un type de terrain.
+     * Les natures de terrain indexées par leur code dans terrains, le code 0
+     * correspond à une case dont le terrain n'est pas encore connu
      */
-    private final Map<Integer, NatureTerrain> map;
+    private static final NatureTerrain[] NATURES = new NatureTerrain[NatureTerrain.values().length + 1];
+
+    static {
+        for (final NatureTerrain natureTerrain : NatureTerrain.values()) {
+            NATURES[natureTerrain.ordinal() + 1] = natureTerrain;
+        }
+    }
+
+    /**
+     * A chaque position correspond un type de terrain, codé sur un octet:
+     * ordinal + 1, ou 0 si le terrain n'est pas connu.
+     */
+    private final TerrainStorage terrains;
+
+    private final int nbCells;
+
+    /**
+     * Nombre de cases dont le terrain est connu, -1 tant qu'il n'a pas été
+     * compté
+     * 
+     * @see #getNbTerrains()
+     */
+    private int nbTerrains;
+
+    /**
+     * Au-delà de ce nombre de cases, l'adjacence n'est pas précalculée et les
+     * voisines sont calculées à chaque demande
+     */
+    private static final int MAX_ADJACENCY_CELLS = 1 << 22;
+
+    /**
+     * Adjacence au format CSR: les voisines de position sont
+     * neighbors[neighborOffsets[position]] à
+     * neighbors[neighborOffsets[position + 1] - 1], dans l'ordre de
+     * Direction.values(). Elle ne dépend que des dimensions de la carte et est
+     * calculée à la première demande, si la carte a au plus
+     * MAX_ADJACENCY_CELLS cases.
+     * 
+     * @see #forEachNeighbor(int, IntConsumer)
+     */
+    private int[] neighbors = null;
+    private volatile int[] neighborOffsets = null;
+
+    /**
+     * Vue de terrains sous forme de Map, créée à la première demande
+     * 
+     * @see #getMap()
+     */
+    private Map<Integer, NatureTerrain> mapView = null;
 
     /**
      * On stocke les positions des terrains de type EAU
@@ -35,12 +90,57 @@ public class Carte {
      */
     private ArrayList<Integer> positionsVoisinsWater = null;
 
-    public Carte(final int nbLignes, final int nbColonnes, final int tailleCases,
-            final Map<Integer, NatureTerrain> map) {
+    /**
+     * Incrémenté à chaque modification du terrain, permet aux caches calculés à
+     * partir de la carte de savoir s'ils sont encore valides
+     */
+    private int version = 0;
+
+    /**
+     * Carte dont aucun terrain n'est encore connu
+     * 
+     * @param nbLignes
+     * @param nbColonnes
+     * @param tailleCases
+     * @see #setTerrain(int, NatureTerrain)
+     */
+    public Carte(final int nbLignes, final int nbColonnes, final int tailleCases) {
+        this(nbLignes, nbColonnes, tailleCases, new ArrayTerrainStorage(nbLignes * nbColonnes));
+        this.nbTerrains = 0;
+    }
+
+    /**
+     * Carte dont les terrains sont lus et écrits dans terrains, qui peut déjà
+     * contenir des terrains connus
+     * 
+     * @param nbLignes
+     * @param nbColonnes
+     * @param tailleCases
+     * @param terrains    stockage d'au moins nbLignes * nbColonnes cases
+     * @see MappedTerrainStorage
+     */
+    public Carte(final int nbLignes, final int nbColonnes, final int tailleCases, final TerrainStorage terrains) {
         this.nbLignes = nbLignes;
         this.nbColonnes = nbColonnes;
         this.tailleCases = tailleCases;
-        this.map = map;
+        this.nbCells = nbLignes * nbColonnes;
+        this.terrains = terrains;
+        this.nbTerrains = -1;
+    }
+
+    /**
+     * @param nbLignes
+     * @param nbColonnes
+     * @param tailleCases
+     * @param map         terrain de chaque position, recopié dans la carte
+     */
+    public Carte(final int nbLignes, final int nbColonnes, final int tailleCases,
+            final Map<Integer, NatureTerrain> map) {
+        this(nbLignes, nbColonnes, tailleCases);
+        for (final Map.Entry<Integer, NatureTerrain> entry : map.entrySet()) {
+            checkPosition(entry.getKey());
+            write(entry.getKey(), entry.getValue());
+        }
     }
 
     /**
@@ -52,10 +152,10 @@ public class Carte {
      * @see #checkPosition(int, int)
      */
     public int getVoisin(final int position, final Direction direction) throws IllegalArgumentException {
-        final int ligne = position / nbLignes;
-        final int colonne = position % nbLignes;
+        final int ligne = position / nbColonnes;
+        final int colonne = position % nbColonnes;
         checkPosition(ligne + direction.getDy(), colonne + direction.getDx());
-        final int positionVoisin = position + (direction.getDy() * nbLignes + direction.getDx());
+        final int positionVoisin = position + (direction.getDy() * nbColonnes + direction.getDx());
         return positionVoisin;
     }
 
@@ -72,10 +172,10 @@ public class Carte {
      */
     public Direction getDirection(final int position, final int positionVoisin) throws IllegalArgumentException {
         checkPosition(positionVoisin);
-        final int ligne = position / nbLignes;
-        final int colonne = position % nbLignes;
-        final int ligneVoisin = positionVoisin / nbLignes;
-        final int colonneVoisin = positionVoisin % nbLignes;
+        final int ligne = position / nbColonnes;
+        final int colonne = position % nbColonnes;
+        final int ligneVoisin = positionVoisin / nbColonnes;
+        final int colonneVoisin = positionVoisin % nbColonnes;
         final int relativePosition = (ligneVoisin - ligne) * Direction.getMult() + (colonneVoisin - colonne);
         return Direction.getDirection(relativePosition);
     }
@@ -90,7 +190,86 @@ public class Carte {
      */
     public NatureTerrain getTerrain(final int position) throws IllegalArgumentException {
         checkPosition(position);
-        return map.get(position);
+        return NATURES[this.terrains.get(position)];
+    }
+
+    /**
+     * Renvoie le code du terrain de la position tel qu'il est stocké, sans
+     * passer par NatureTerrain. Pour les parcours de toute la carte, qui
+     * n'ont pas à en faire une copie.
+     *
+     * @param position
+     * @return ordinal + 1 de la nature du terrain, 0 s'il n'est pas connu
+     * @throws IllegalArgumentException
+     * @see #checkPosition(int)
+     * @see TerrainStorage
+     */
+    public byte getTerrainCode(final int position) throws IllegalArgumentException {
+        checkPosition(position);
+        return this.terrains.get(position);
+    }
+
+    /**
+     * Modifie la nature du terrain de la position
+     * 
+     * @param position
+     * @param natureTerrain
+     * @throws IllegalArgumentException
+     * @see #checkPosition(int)
+     * @see #getVersion()
+     */
+    public void setTerrain(final int position, final NatureTerrain natureTerrain) throws IllegalArgumentException {
+        checkPosition(position);
+        if (write(position, natureTerrain) != natureTerrain) {
+            this.positionsWater = null;
+            this.positionsVoisinsWater = null;
+            this.version++;
+        }
+    }
+
+    /**
+     * @param position      sur la carte
+     * @param natureTerrain
+     * @return ancienne nature du terrain, null si elle n'était pas connue
+     */
+    private NatureTerrain write(final int position, final NatureTerrain natureTerrain) {
+        final NatureTerrain old = NATURES[this.terrains.get(position)];
+        this.terrains.set(position, (byte) ((natureTerrain == null) ? 0 : natureTerrain.ordinal() + 1));
+        if (this.nbTerrains < 0) {
+            return old;
+        }
+        if (old == null && natureTerrain != null) {
+            this.nbTerrains++;
+        } else if (old != null && natureTerrain == null) {
+            this.nbTerrains--;
+        }
+        return old;
+    }
+
+    /**
+     * @return nombre de cases dont le terrain est connu, compté à la première
+     *         demande si le stockage a été fourni à la construction
+     */
+    private int getNbTerrains() {
+        if (this.nbTerrains < 0) {
+            int nbTerrains = 0;
+            for (int position = 0; position < this.nbCells; position++) {
+                if (this.terrains.get(position) != 0) {
+                    nbTerrains++;
+                }
+            }
+            this.nbTerrains = nbTerrains;
+        }
+        return this.nbTerrains;
+    }
+
+    /**
+     * @return numéro de version du terrain, change à chaque appel à setTerrain
+     *         modifiant la carte
+     * @see #setTerrain(int, NatureTerrain)
+     */
+    public int getVersion() {
+        return this.version;
     }
 
     /**
@@ -104,7 +283,7 @@ public class Carte {
      */
     public NatureTerrain getTerrainVoisin(final int position, final Direction direction)
             throws IllegalArgumentException {
-        return map.get(getVoisin(position, direction));
+        return NATURES[this.terrains.get(getVoisin(position, direction))];
     }
 
     /**
@@ -129,13 +308,25 @@ public class Carte {
      * @param natureTerrain
      * @return
      * @throws IllegalArgumentException
-     * @see Direction
-     * @see #getTerrainVoisin(int, Direction)
+     * @see #forEachNeighbor(int, IntConsumer)
      */
     public Boolean existTerrainVoisin(final int position, final NatureTerrain natureTerrain)
             throws IllegalArgumentException {
-        for (final Direction direction : Direction.values()) {
-            if (getTerrainVoisin(position, direction) == natureTerrain) {
+        checkPosition(position);
+        final int[] offsets = getNeighborOffsets();
+        if (offsets == null) {
+            for (final Direction direction : Direction.values()) {
+                final int ligne = position / nbColonnes + direction.getDy();
+                final int colonne = position % nbColonnes + direction.getDx();
+                if (isOnMap(ligne, colonne)
+                        && NATURES[this.terrains.get(ligne * nbColonnes + colonne)] == natureTerrain) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int i = offsets[position]; i < offsets[position + 1]; i++) {
+            if (NATURES[this.terrains.get(this.neighbors[i])] == natureTerrain) {
                 return true;
             }
         }
@@ -150,8 +341,8 @@ public class Carte {
      * @see #checkPosition(int)
      */
     private void checkPosition(final int position) throws IllegalArgumentException {
-        final int ligne = position / nbLignes;
-        final int colonne = position % nbLignes;
+        final int ligne = position / nbColonnes;
+        final int colonne = position % nbColonnes;
         checkPosition(ligne, colonne);
     }
 
@@ -183,21 +374,105 @@ public class Carte {
      * 
      * @param position
      * @return ArrayList<Integer> de positions voisines de position
-     * @see Direction
-     * @see #getVoisin(int, Direction)
+     * @throws IllegalArgumentException
+     * @see #forEachNeighbor(int, IntConsumer)
+     */
+    public ArrayList<Integer> getNeighbors(final int position) throws IllegalArgumentException {
+        final ArrayList<Integer> neighbors = new ArrayList<Integer>(Direction.values().length);
+        forEachNeighbor(position, neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Applique action à chaque position voisine de position sur la carte, dans
+     * l'ordre de Direction.values(), sans allocation
+     * 
+     * @param position
+     * @param action
+     * @throws IllegalArgumentException
+     * @see #checkPosition(int)
      */
-    public ArrayList<Integer> getNeighbors(final int position) {
-        final ArrayList<Integer> neighbors = new ArrayList<Integer>();
-        for (final Direction direction : Direction.values()) {
-            try {
-                // throw IllegalArgumentException if the voisin is not on the map
-                final int neighbor = getVoisin(position, direction);
-                neighbors.add(neighbor);
-            } catch (final Exception IllegalArgumentException) {
+    public void forEachNeighbor(final int position, final IntConsumer action) throws IllegalArgumentException {
+        checkPosition(position);
+        final int[] offsets = getNeighborOffsets();
+        if (offsets == null) {
+            for (final Direction direction : Direction.values()) {
+                final int ligne = position / nbColonnes + direction.getDy();
+                final int colonne = position % nbColonnes + direction.getDx();
+                if (isOnMap(ligne, colonne)) {
+                    action.accept(ligne * nbColonnes + colonne);
+                }
             }
+            return;
         }
-        // LOGGER.info("voisins: {}", neighbors);
-        return neighbors;
+        for (int i = offsets[position]; i < offsets[position + 1]; i++) {
+            action.accept(this.neighbors[i]);
+        }
+    }
+
+    /**
+     * @param position
+     * @return nombre de positions voisines de position sur la carte
+     * @throws IllegalArgumentException
+     */
+    public int getNbNeighbors(final int position) throws IllegalArgumentException {
+        checkPosition(position);
+        final int[] offsets = getNeighborOffsets();
+        if (offsets == null) {
+            int nbNeighbors = 0;
+            for (final Direction direction : Direction.values()) {
+                if (isOnMap(position / nbColonnes + direction.getDy(), position % nbColonnes + direction.getDx())) {
+                    nbNeighbors++;
+                }
+            }
+            return nbNeighbors;
+        }
+        return offsets[position + 1] - offsets[position];
+    }
+
+    /**
+     * @return neighborOffsets, après avoir calculé l'adjacence si besoin, null
+     *         si la carte est trop grande pour la précalculer
+     * @see #initNeighbors()
+     * @see #MAX_ADJACENCY_CELLS
+     */
+    private int[] getNeighborOffsets() {
+        if (this.nbCells > MAX_ADJACENCY_CELLS) {
+            return null;
+        }
+        final int[] offsets = this.neighborOffsets;
+        return (offsets != null) ? offsets : initNeighbors();
+    }
+
+    /**
+     * Calcule l'adjacence CSR à partir des dimensions de la carte, les voisines
+     * hors de la carte sont écartées par un test de bornes.
+     * 
+     * @return neighborOffsets
+     */
+    private synchronized int[] initNeighbors() {
+        if (this.neighborOffsets != null) {
+            return this.neighborOffsets;
+        }
+        final int nbCells = this.nbCells;
+        final int[] offsets = new int[nbCells + 1];
+        final int[] neighbors = new int[Direction.values().length * nbCells];
+        int size = 0;
+        for (int position = 0; position < nbCells; position++) {
+            offsets[position] = size;
+            final int ligne = position / nbColonnes;
+            final int colonne = position % nbColonnes;
+            for (final Direction direction : Direction.values()) {
+                if (isOnMap(ligne + direction.getDy(), colonne + direction.getDx())) {
+                    neighbors[size++] = position + (direction.getDy() * nbColonnes + direction.getDx());
+                }
+            }
+        }
+        offsets[nbCells] = size;
+        this.neighbors = Arrays.copyOf(neighbors, size);
+        // publié en dernier: neighborOffsets non null garantit neighbors
+        this.neighborOffsets = offsets;
+        return offsets;
     }
 
     public int getNbLignes() {
@@ -212,13 +487,103 @@ public class Carte {
         return this.tailleCases;
     }
 
+    /**
+     * Vue des terrains connus sous forme de Map, parcourue par position
+     * croissante. Une écriture dans la vue passe par setTerrain.
+     * 
+     * @return Map position -> nature du terrain
+     * @see #setTerrain(int, NatureTerrain)
+     */
     public Map<Integer, NatureTerrain> getMap() {
-        return map;
+        if (this.mapView == null) {
+            this.mapView = new MapView();
+        }
+        return this.mapView;
+    }
+
+    /**
+     * Vue Map des terrains, sans copie
+     */
+    private class MapView extends AbstractMap<Integer, NatureTerrain> {
+        private final Set<Map.Entry<Integer, NatureTerrain>> entrySet = new AbstractSet<Map.Entry<Integer, NatureTerrain>>() {
+            @Override
+            public Iterator<Map.Entry<Integer, NatureTerrain>> iterator() {
+                return new Iterator<Map.Entry<Integer, NatureTerrain>>() {
+                    private int position = nextPosition(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.position < nbCells;
+                    }
+
+                    @Override
+                    public Map.Entry<Integer, NatureTerrain> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final Map.Entry<Integer, NatureTerrain> entry = new AbstractMap.SimpleImmutableEntry<Integer, NatureTerrain>(
+                                this.position, NATURES[terrains.get(this.position)]);
+                        this.position = nextPosition(this.position + 1);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return getNbTerrains();
+            }
+        };
+
+        /**
+         * @param from
+         * @return première position à partir de from dont le terrain est connu
+         */
+        private int nextPosition(int from) {
+            while (from < nbCells && terrains.get(from) == 0) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, NatureTerrain>> entrySet() {
+            return this.entrySet;
+        }
+
+        @Override
+        public int size() {
+            return getNbTerrains();
+        }
+
+        @Override
+        public NatureTerrain get(final Object key) {
+            if (!(key instanceof Integer))
+                return null;
+            final int position = (Integer) key;
+            return (position >= 0 && position < nbCells) ? NATURES[terrains.get(position)] : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public NatureTerrain put(final Integer position, final NatureTerrain natureTerrain) {
+            final NatureTerrain old = get(position);
+            setTerrain(position, natureTerrain);
+            return old;
+        }
     }
 
     private void initPositionsWater() {
-        this.positionsWater = map.entrySet().stream().filter(map -> (map.getValue() == NatureTerrain.EAU))
-                .map(map -> map.getKey()).collect(Collectors.toCollection(ArrayList::new));
+        this.positionsWater = new ArrayList<Integer>();
+        for (int position = 0; position < this.nbCells; position++) {
+            if (NATURES[this.terrains.get(position)] == NatureTerrain.EAU) {
+                this.positionsWater.add(position);
+            }
+        }
     }
 
     /**
@@ -237,9 +602,15 @@ public class Carte {
     public ArrayList<Integer> getPositionsVoisinsWater() {
         if (this.positionsVoisinsWater == null) {
             initPositionsWater();
-            this.positionsVoisinsWater = this.positionsWater.stream().map(positionWater -> getNeighbors(positionWater))
-                    .flatMap(ArrayList::stream).filter(position -> (getTerrain(position) != NatureTerrain.EAU))
-                    .collect(Collectors.toCollection(ArrayList::new));
+            final ArrayList<Integer> positionsVoisinsWater = new ArrayList<Integer>();
+            for (final int positionWater : this.positionsWater) {
+                forEachNeighbor(positionWater, position -> {
+                    if (NATURES[this.terrains.get(position)] != NatureTerrain.EAU) {
+                        positionsVoisinsWater.add(position);
+                    }
+                });
+            }
+            this.positionsVoisinsWater = positionsVoisinsWater;
         }
         return this.positionsVoisinsWater;
     }
@@ -248,7 +619,7 @@ public class Carte {
     public String toString() {
         String res = new String();
         res += "Carte de taille " + nbLignes + "x" + nbColonnes + "x" + tailleCases + "\n";
-        for (final Map.Entry<Integer, NatureTerrain> tEntry : map.entrySet()) {
+        for (final Map.Entry<Integer, NatureTerrain> tEntry : getMap().entrySet()) {
             res += tEntry.getKey() + ": " + tEntry.getValue().toString() + "\n";
         }
         return res;
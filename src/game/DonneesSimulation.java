@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
+import game.pathfinding.DistanceFieldManager;
 import game.robots.Robot;
 
 /**
@@ -38,6 +39,23 @@ public class DonneesSimulation {
      */
     private Map<Integer, ArrayList<Robot>> robots;
 
+    /**
+     * Volume d'eau déversé par l'ensemble des robots depuis le début de la simulation
+     */
+    private double eauDeversee = 0;
+
+    /**
+     * Champs de distance vers les incendies et les points d'eau, ne dépendent que
+     * de la carte
+     */
+    private DistanceFieldManager distanceFieldManager;
+
+    /**
+     * Index spatial des incendies d'intensité non nulle, créé à la première
+     * demande et tenu à jour par updateIncendie
+     */
+    private FireIndex fireIndex;
+
     public DonneesSimulation() {}
 
     /**
@@ -49,6 +67,9 @@ public class DonneesSimulation {
      */
     public DonneesSimulation(final DonneesSimulation another) {
         this.carte = another.carte; // la carte ne change pas entre deux restarts
+        // créé ici s'il ne l'est pas encore, pour que les champs calculés après
+        // la copie servent aussi aux restarts
+        this.distanceFieldManager = another.getDistanceFieldManager();
         this.incendies = new HashMap<Integer, Integer>(another.incendies);
 
         this.robots = new HashMap<Integer, ArrayList<Robot>>();
@@ -68,6 +89,19 @@ public class DonneesSimulation {
 
     public void setCarte(final Carte carte) {
         this.carte = carte;
+        this.distanceFieldManager = null;
+        this.fireIndex = null;
+    }
+
+    /**
+     * @return champs de distance de la carte, créés à la première demande
+     * @see DistanceFieldManager#DistanceFieldManager(Carte)
+     */
+    public DistanceFieldManager getDistanceFieldManager() {
+        if (this.distanceFieldManager == null) {
+            this.distanceFieldManager = new DistanceFieldManager(this.carte);
+        }
+        return this.distanceFieldManager;
     }
 
     public Map<Integer, Integer> getIncendies() {
@@ -76,6 +110,64 @@ public class DonneesSimulation {
 
     public void setIncendies(final Map<Integer, Integer> incendies) {
         this.incendies = incendies;
+        this.fireIndex = null;
+    }
+
+    /**
+     * @return index des incendies d'intensité non nulle, créé à la première
+     *         demande
+     * @see FireIndex#FireIndex(Carte)
+     */
+    public FireIndex getFireIndex() {
+        if (this.fireIndex == null) {
+            this.fireIndex = new FireIndex(this.carte);
+            for (final Map.Entry<Integer, Integer> incendie : this.incendies.entrySet()) {
+                if (incendie.getValue() != 0) {
+                    this.fireIndex.add(incendie.getKey());
+                }
+            }
+        }
+        return this.fireIndex;
+    }
+
+    /**
+     * Met à jour l'intensité d'un incendie. Un incendie éteint est retiré de
+     * l'index des incendies et des champs de distance.
+     * 
+     * @param position
+     * @param intensity
+     * @see FireIndex#remove(int)
+     * @see DistanceFieldManager#removeFire(int)
+     */
+    public void updateIncendie(final int position, final int intensity) {
+        this.incendies.put(position, intensity);
+        if (this.fireIndex != null) {
+            if (intensity == 0) {
+                this.fireIndex.remove(position);
+            } else {
+                this.fireIndex.add(position);
+            }
+        }
+        if (intensity == 0 && this.distanceFieldManager != null) {
+            // les champs de distance vers cet incendie ne servent plus
+            this.distanceFieldManager.removeFire(position);
+        }
+    }
+
+    /**
+     * @return true s'il ne reste aucun incendie d'intensité non nulle
+     * @see FireIndex#isEmpty()
+     */
+    public Boolean isIncendiesEteints() {
+        return getFireIndex().isEmpty();
+    }
+
+    public double getEauDeversee() {
+        return eauDeversee;
+    }
+
+    public void addEauDeversee(final double volume) {
+        this.eauDeversee += volume;
     }
 
     public Map<Integer, ArrayList<Robot>> getRobots() {
@@ -102,6 +194,24 @@ public class DonneesSimulation {
         return null;
     }
 
+    /**
+     * Déplace le robot sur newPosition et met à jour la liste des robots par
+     * position.
+     * 
+     * @param robot
+     * @param newPosition
+     * @see Robot#setPosition(Integer)
+     */
+    public void deplacerRobot(final Robot robot, final int newPosition) {
+        final int position = robot.getPosition();
+        // update the robot position
+        robot.setPosition(newPosition);
+        // delete the robot
+        this.robots.get(position).remove(robot);
+        // add the robot
+        this.robots.computeIfAbsent(newPosition, k -> new ArrayList<Robot>()).add(robot);
+    }
+
     /**
      * Le temps mis pour se rendre d’une case à l’autre est l'inverse de la moyenne
      * de la vitesse sur chacune des cases multipliée par la taille des cases.
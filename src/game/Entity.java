@@ -96,4 +96,9 @@ public abstract class Entity implements IdentifiedEntity<Long>, Dated<Long> {
         final Entity other = (Entity) obj;
         return (this.entityId == other.entityId);
     }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.entityId);
+    }
 }
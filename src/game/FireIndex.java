@@ -0,0 +1,324 @@
+package game;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Index spatial des incendies actifs: la carte est découpée en seaux carrés de
+ * bucketSize x bucketSize cases, chaque seau contient les positions des
+ * incendies actifs qu'il couvre.
+ *
+ * Ajouter ou retirer un incendie se fait en temps constant. Les requêtes des k
+ * plus proches incendies et des incendies dans un rayon (distance de Manhattan
+ * en nombre de cases) ne parcourent que les seaux proches de la position
+ * demandée.
+ *
+ * @author Nicolas Vincent
+ * @see DonneesSimulation#getFireIndex()
+ */
+public class FireIndex {
+    /**
+     * Côté d'un seau, en nombre de cases
+     */
+    public static final int DEFAULT_BUCKET_SIZE = 8;
+
+    private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+    private final int nbLignes, nbColonnes, bucketSize;
+    private final int nbBucketLignes, nbBucketColonnes;
+
+    /**
+     * Positions des incendies actifs de chaque seau, les bucketSizes[b]
+     * premières cases de buckets[b] sont utilisées
+     */
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+
+    /**
+     * Indice de chaque position dans son seau, -1 si la position n'est pas un
+     * incendie actif
+     */
+    private final int[] indexInBucket;
+
+    private int size = 0;
+
+    /**
+     * @param carte
+     * @see #DEFAULT_BUCKET_SIZE
+     */
+    public FireIndex(final Carte carte) {
+        this(carte, DEFAULT_BUCKET_SIZE);
+    }
+
+    /**
+     * @param carte
+     * @param bucketSize côté d'un seau, en nombre de cases
+     * @throws IllegalArgumentException if bucketSize is not positive
+     */
+    public FireIndex(final Carte carte, final int bucketSize) throws IllegalArgumentException {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("Taille de seau invalide: " + bucketSize);
+        }
+        this.nbLignes = carte.getNbLignes();
+        this.nbColonnes = carte.getNbColonnes();
+        this.bucketSize = bucketSize;
+        this.nbBucketLignes = (this.nbLignes + bucketSize - 1) / bucketSize;
+        this.nbBucketColonnes = (this.nbColonnes + bucketSize - 1) / bucketSize;
+        this.buckets = new int[this.nbBucketLignes * this.nbBucketColonnes][];
+        this.bucketSizes = new int[this.buckets.length];
+        this.indexInBucket = new int[this.nbLignes * this.nbColonnes];
+        Arrays.fill(this.indexInBucket, -1);
+    }
+
+    /**
+     * @param position
+     * @return indice du seau contenant la position
+     */
+    private int getBucket(final int position) {
+        return (position / this.nbColonnes / this.bucketSize) * this.nbBucketColonnes
+                + (position % this.nbColonnes) / this.bucketSize;
+    }
+
+    /**
+     * @param a
+     * @param b
+     * @return distance de Manhattan entre a et b, en nombre de cases
+     */
+    private int getManhattan(final int a, final int b) {
+        return Math.abs(a / this.nbColonnes - b / this.nbColonnes)
+                + Math.abs(a % this.nbColonnes - b % this.nbColonnes);
+    }
+
+    /**
+     * @param position
+     * @throws IllegalArgumentException if the position is out of the map
+     */
+    private void checkPosition(final int position) throws IllegalArgumentException {
+        if (position < 0 || position >= this.indexInBucket.length) {
+            throw new IllegalArgumentException("Position en dehors de la carte: " + position);
+        }
+    }
+
+    /**
+     * @param position
+     * @return true si l'incendie n'était pas déjà dans l'index
+     * @throws IllegalArgumentException if the position is out of the map
+     */
+    public boolean add(final int position) throws IllegalArgumentException {
+        checkPosition(position);
+        if (this.indexInBucket[position] >= 0) {
+            return false;
+        }
+        final int bucket = getBucket(position);
+        int[] positions = this.buckets[bucket];
+        if (positions == null) {
+            positions = this.buckets[bucket] = new int[INITIAL_BUCKET_CAPACITY];
+        } else if (this.bucketSizes[bucket] == positions.length) {
+            positions = this.buckets[bucket] = Arrays.copyOf(positions, 2 * positions.length);
+        }
+        positions[this.bucketSizes[bucket]] = position;
+        this.indexInBucket[position] = this.bucketSizes[bucket]++;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * La dernière position du seau prend la place de celle retirée
+     *
+     * @param position
+     * @return true si l'incendie était dans l'index
+     * @throws IllegalArgumentException if the position is out of the map
+     */
+    public boolean remove(final int position) throws IllegalArgumentException {
+        checkPosition(position);
+        final int index = this.indexInBucket[position];
+        if (index < 0) {
+            return false;
+        }
+        final int bucket = getBucket(position);
+        final int[] positions = this.buckets[bucket];
+        final int last = positions[--this.bucketSizes[bucket]];
+        positions[index] = last;
+        this.indexInBucket[last] = index;
+        this.indexInBucket[position] = -1;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * @param position
+     * @return true si un incendie actif se trouve sur la position
+     */
+    public boolean contains(final int position) {
+        return position >= 0 && position < this.indexInBucket.length && this.indexInBucket[position] >= 0;
+    }
+
+    /**
+     * @return nombre d'incendies actifs
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return positions des incendies actifs, par ordre croissant
+     */
+    public int[] toArray() {
+        final int[] positions = new int[this.size];
+        int i = 0;
+        for (int bucket = 0; bucket < this.buckets.length; bucket++) {
+            for (int j = 0; j < this.bucketSizes[bucket]; j++) {
+                positions[i++] = this.buckets[bucket][j];
+            }
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Applique action à chaque incendie actif, seau par seau
+     *
+     * @param action
+     */
+    public void forEach(final IntConsumer action) {
+        for (int bucket = 0; bucket < this.buckets.length; bucket++) {
+            for (int j = 0; j < this.bucketSizes[bucket]; j++) {
+                action.accept(this.buckets[bucket][j]);
+            }
+        }
+    }
+
+    /**
+     * Parcourt les seaux par anneaux autour de celui de la position. Tous les
+     * seaux d'un anneau r sont à au moins (r - 1) * bucketSize + 1 cases de la
+     * position: la recherche s'arrête dès que cette borne dépasse la distance
+     * du k-ième incendie trouvé.
+     *
+     * @param position
+     * @param k
+     * @return au plus k incendies actifs les plus proches de la position, par
+     *         distance de Manhattan croissante puis par position croissante
+     * @throws IllegalArgumentException if the position is out of the map
+     */
+    public int[] nearest(final int position, final int k) throws IllegalArgumentException {
+        checkPosition(position);
+        final int nb = Math.min(k, this.size);
+        if (nb <= 0) {
+            return new int[0];
+        }
+        // (distance << 32) | position, triés par ordre croissant
+        final long[] best = new long[nb];
+        int count = 0;
+        final int bucketLigne = position / this.nbColonnes / this.bucketSize;
+        final int bucketColonne = (position % this.nbColonnes) / this.bucketSize;
+        final int maxRing = Math.max(Math.max(bucketLigne, this.nbBucketLignes - 1 - bucketLigne),
+                Math.max(bucketColonne, this.nbBucketColonnes - 1 - bucketColonne));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (count == nb && ring > 0 && (best[nb - 1] >>> 32) < (long) (ring - 1) * this.bucketSize + 1) {
+                break;
+            }
+            for (int i = Math.max(0, bucketLigne - ring); i <= Math.min(this.nbBucketLignes - 1,
+                    bucketLigne + ring); i++) {
+                final boolean bord = Math.abs(i - bucketLigne) == ring;
+                // hors des lignes du bord de l'anneau, seules les deux colonnes extrêmes en font partie
+                final int pas = bord ? 1 : 2 * ring;
+                for (int j = bucketColonne - ring; j <= bucketColonne + ring; j += pas) {
+                    if (j < 0 || j >= this.nbBucketColonnes)
+                        continue;
+                    final int bucket = i * this.nbBucketColonnes + j;
+                    for (int n = 0; n < this.bucketSizes[bucket]; n++) {
+                        final int fire = this.buckets[bucket][n];
+                        final long key = ((long) getManhattan(position, fire) << 32) | fire;
+                        if (count < nb) {
+                            count++;
+                        } else if (key >= best[nb - 1]) {
+                            continue;
+                        }
+                        // insertion dans best, trié
+                        int m = count - 1;
+                        while (m > 0 && best[m - 1] > key) {
+                            best[m] = best[m - 1];
+                            m--;
+                        }
+                        best[m] = key;
+                    }
+                }
+            }
+        }
+        final int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = (int) best[i];
+        }
+        return positions;
+    }
+
+    /**
+     * @param position
+     * @param radius distance de Manhattan maximale, en nombre de cases
+     * @return incendies actifs à au plus radius cases de la position, par
+     *         distance croissante puis par position croissante
+     * @throws IllegalArgumentException if the position is out of the map
+     */
+    public int[] inRadius(final int position, final int radius) throws IllegalArgumentException {
+        checkPosition(position);
+        final int[] count = { 0 };
+        final long[][] found = { new long[INITIAL_BUCKET_CAPACITY] };
+        forEachInRadius(position, radius, fire -> {
+            if (count[0] == found[0].length) {
+                found[0] = Arrays.copyOf(found[0], 2 * count[0]);
+            }
+            found[0][count[0]++] = ((long) getManhattan(position, fire) << 32) | fire;
+        });
+        final long[] keys = Arrays.copyOf(found[0], count[0]);
+        Arrays.sort(keys);
+        final int[] positions = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            positions[i] = (int) keys[i];
+        }
+        return positions;
+    }
+
+    /**
+     * Applique action à chaque incendie actif à au plus radius cases de la
+     * position, sans ordre particulier. Seuls les seaux qui recoupent le carré
+     * englobant le rayon sont parcourus.
+     *
+     * @param position
+     * @param radius distance de Manhattan maximale, en nombre de cases
+     * @param action
+     * @throws IllegalArgumentException if the position is out of the map
+     */
+    public void forEachInRadius(final int position, final int radius, final IntConsumer action)
+            throws IllegalArgumentException {
+        checkPosition(position);
+        if (radius < 0) {
+            return;
+        }
+        final int ligne = position / this.nbColonnes;
+        final int colonne = position % this.nbColonnes;
+        final int minI = Math.max(0, ligne - radius) / this.bucketSize;
+        final int maxI = Math.min(this.nbLignes - 1, ligne + radius) / this.bucketSize;
+        final int minJ = Math.max(0, colonne - radius) / this.bucketSize;
+        final int maxJ = Math.min(this.nbColonnes - 1, colonne + radius) / this.bucketSize;
+        for (int i = minI; i <= maxI; i++) {
+            for (int j = minJ; j <= maxJ; j++) {
+                final int bucket = i * this.nbBucketColonnes + j;
+                for (int n = 0; n < this.bucketSizes[bucket]; n++) {
+                    final int fire = this.buckets[bucket][n];
+                    if (getManhattan(position, fire) <= radius) {
+                        action.accept(fire);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FireIndex [size=" + this.size + ", bucketSize=" + this.bucketSize + "]";
+    }
+}
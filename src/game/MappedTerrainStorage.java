@@ -0,0 +1,264 @@
+package game;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stockage dans un fichier projeté en mémoire, découpé en tuiles de
+ * CHUNK_SIDE x CHUNK_SIDE cases rangées l'une après l'autre. Une tuile occupe
+ * CHUNK_SIDE * CHUNK_SIDE octets, une case par octet, ligne par ligne.
+ *
+ * Seules les tuiles récemment utilisées restent projetées: un cache LRU de
+ * taille fixe garde au plus cacheSize tuiles. Une tuile sortie du cache est
+ * écrite sur le disque puis libérée tout de suite, sans attendre le ramasse
+ * miettes: la mémoire projetée reste bornée par cacheSize * 4 Kio. Les octets
+ * sont hors du tas, l'occupation du tas ne dépend donc pas de la taille de la
+ * carte. Un parcours ligne par ligne ne recharge chaque tuile qu'une fois tant
+ * qu'une ligne de tuiles tient dans le cache.
+ *
+ * Seul le stockage des terrains est borné: CostGrid et les structures de
+ * recherche de chemin restent en O(cases) sur le tas, une carte de 10^8 cases
+ * ne peut être parcourue qu'en partie.
+ *
+ * Un fichier vide est agrandi à la taille de la carte, tous les terrains sont
+ * alors inconnus. Un fichier existant de la bonne taille est réutilisé tel
+ * quel: une carte lue une fois par LecteurDonnees n'a pas à être convertie de
+ * nouveau.
+ *
+ * @author Nicolas Vincent
+ * @see TerrainStorage
+ * @see io.LecteurDonnees#lire(String, File)
+ * @see game.pathfinding.CostGrid
+ */
+public class MappedTerrainStorage implements TerrainStorage, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedTerrainStorage.class);
+
+    /**
+     * Côté d'une tuile, en nombre de cases: une tuile occupe 4 Kio
+     */
+    public static final int CHUNK_SIDE = 64;
+    private static final int CHUNK_BYTES = CHUNK_SIDE * CHUNK_SIDE;
+
+    /**
+     * Nombre de tuiles projetées par défaut, soit 1 Mio de fichier
+     */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    /**
+     * Unsafe#invokeCleaner(ByteBuffer), seul moyen de libérer une projection
+     * avant que le buffer soit ramassé. null s'il n'est pas accessible, les
+     * tuiles sont alors libérées par le ramasse miettes.
+     */
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Les tuiles ne pourront pas être libérées avant le ramasse miettes", e);
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int nbColonnes;
+    private final int nbChunksColonnes;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    /**
+     * Tuiles projetées, de la moins à la plus récemment utilisée
+     */
+    private final LinkedHashMap<Integer, MappedByteBuffer> cache;
+
+    /**
+     * Dernière tuile utilisée, évite la recherche dans le cache pour des accès
+     * voisins
+     */
+    private int lastChunk = -1;
+    private MappedByteBuffer lastBuffer = null;
+
+    /**
+     * Nombre de tuiles projetées depuis l'ouverture du fichier
+     */
+    private long nbLoads = 0;
+
+    /**
+     * @param file
+     * @param nbLignes
+     * @param nbColonnes
+     * @throws IOException
+     * @see #MappedTerrainStorage(File, int, int, int)
+     */
+    public MappedTerrainStorage(final File file, final int nbLignes, final int nbColonnes) throws IOException {
+        this(file, nbLignes, nbColonnes, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param file       fichier de stockage, créé s'il n'existe pas
+     * @param nbLignes
+     * @param nbColonnes
+     * @param cacheSize  nombre maximal de tuiles projetées en même temps
+     * @throws IOException              if the file can't be opened, or if its
+     *                                  size doesn't match the map dimensions
+     * @throws IllegalArgumentException if cacheSize is not positive
+     */
+    public MappedTerrainStorage(final File file, final int nbLignes, final int nbColonnes, final int cacheSize)
+            throws IOException, IllegalArgumentException {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Taille de cache invalide: " + cacheSize);
+        }
+        this.nbColonnes = nbColonnes;
+        this.nbChunksColonnes = (nbColonnes + CHUNK_SIDE - 1) / CHUNK_SIDE;
+        final long nbChunks = (long) ((nbLignes + CHUNK_SIDE - 1) / CHUNK_SIDE) * this.nbChunksColonnes;
+        final long length = nbChunks * CHUNK_BYTES;
+
+        this.file = new RandomAccessFile(file, "rw");
+        this.channel = this.file.getChannel();
+        if (this.channel.size() == 0) {
+            LOGGER.info("Création du fichier de terrain {} ({} tuiles)", file, nbChunks);
+            this.file.setLength(length);
+        } else if (this.channel.size() != length) {
+            this.file.close();
+            throw new IOException("Le fichier " + file + " ne correspond pas à une carte " + nbLignes + "x"
+                    + nbColonnes);
+        }
+
+        this.cache = new LinkedHashMap<Integer, MappedByteBuffer>(2 * cacheSize, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, MappedByteBuffer> eldest) {
+                if (size() <= cacheSize) {
+                    return false;
+                }
+                if (eldest.getKey() == MappedTerrainStorage.this.lastChunk) {
+                    MappedTerrainStorage.this.lastChunk = -1;
+                    MappedTerrainStorage.this.lastBuffer = null;
+                }
+                release(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param chunk
+     * @return tuile projetée, chargée si elle n'est pas dans le cache
+     * @throws UncheckedIOException if the chunk can't be mapped
+     */
+    private MappedByteBuffer getChunk(final int chunk) {
+        if (chunk == this.lastChunk) {
+            return this.lastBuffer;
+        }
+        MappedByteBuffer buffer = this.cache.get(chunk);
+        if (buffer == null) {
+            try {
+                buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, (long) chunk * CHUNK_BYTES, CHUNK_BYTES);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.nbLoads++;
+            this.cache.put(chunk, buffer);
+        }
+        this.lastChunk = chunk;
+        this.lastBuffer = buffer;
+        return buffer;
+    }
+
+    /**
+     * Écrit la tuile sur le disque et libère sa projection. Le buffer ne doit
+     * plus être lu ensuite: il ne doit rester ni dans le cache ni dans
+     * lastBuffer.
+     *
+     * @param buffer
+     */
+    private static void release(final MappedByteBuffer buffer) {
+        buffer.force();
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (final ReflectiveOperationException e) {
+            LOGGER.warn("Impossible de libérer une tuile", e);
+        }
+    }
+
+    /**
+     * @param ligne
+     * @param colonne
+     * @return indice de la tuile contenant la case
+     */
+    private int getChunkIndex(final int ligne, final int colonne) {
+        return (ligne / CHUNK_SIDE) * this.nbChunksColonnes + colonne / CHUNK_SIDE;
+    }
+
+    /**
+     * @param ligne
+     * @param colonne
+     * @return indice de la case dans sa tuile
+     */
+    private static int getOffset(final int ligne, final int colonne) {
+        return (ligne % CHUNK_SIDE) * CHUNK_SIDE + colonne % CHUNK_SIDE;
+    }
+
+    @Override
+    public synchronized byte get(final int position) {
+        final int ligne = position / this.nbColonnes;
+        final int colonne = position % this.nbColonnes;
+        return getChunk(getChunkIndex(ligne, colonne)).get(getOffset(ligne, colonne));
+    }
+
+    @Override
+    public synchronized void set(final int position, final byte code) {
+        final int ligne = position / this.nbColonnes;
+        final int colonne = position % this.nbColonnes;
+        getChunk(getChunkIndex(ligne, colonne)).put(getOffset(ligne, colonne), code);
+    }
+
+    /**
+     * @return nombre de tuiles projetées depuis l'ouverture du fichier
+     */
+    public synchronized long getNbLoads() {
+        return this.nbLoads;
+    }
+
+    /**
+     * Écrit les tuiles projetées sur le disque, les libère et ferme le fichier
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.lastChunk = -1;
+        this.lastBuffer = null;
+        for (final MappedByteBuffer buffer : this.cache.values()) {
+            release(buffer);
+        }
+        this.cache.clear();
+        this.file.close();
+    }
+}
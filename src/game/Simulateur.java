@@ -24,11 +24,31 @@ public class Simulateur implements Simulable {
 
     public static final long INCREMENT = 360;
 
+    /**
+     * FIXED: la date courante avance de INCREMENT à chaque itération,
+     * NEXT_EVENT: la date courante avance jusqu'à la date du prochain event
+     */
+    public static enum TimeAdvance {
+        FIXED,
+        NEXT_EVENT
+    }
+
+    private TimeAdvance timeAdvance = TimeAdvance.FIXED;
+
+    /**
+     * Avancement maximal de la date courante en mode NEXT_EVENT, 0 si on ne
+     * limite pas l'avancement
+     */
+    private long maxIncrement = 0;
+
     private DonneesSimulation donneesSimulation;
     private final DonneesSimulation donneesSimulationSaved;
 
     private final EventManager eventManager;
 
+    /**
+     * null si la simulation est exécutée sans interface graphique
+     */
     private final GraphicsComponent graphicsComponent;
     private Strategie strategie = null;
 
@@ -50,8 +70,10 @@ public class Simulateur implements Simulable {
         this.eventManager = eventManager;
 
         this.graphicsComponent = graphicsComponent;
-        this.graphicsComponent.setSimulable(this);
-        this.graphicsComponent.init();
+        if (this.graphicsComponent != null) {
+            this.graphicsComponent.setSimulable(this);
+            this.graphicsComponent.init();
+        }
     }
 
     /**
@@ -68,16 +90,64 @@ public class Simulateur implements Simulable {
         this.strategie = strategie;
     }
 
+    /**
+     * Initialisation d'un Simulateur sans interface graphique. Aucun composant
+     * AWT n'est instancié.
+     * 
+     * @param donneesSimulation
+     * @param eventManager s'occupe des events
+     * @param strategie
+     * @see BatchSimulator
+     */
+    public Simulateur(final DonneesSimulation donneesSimulation, final EventManager eventManager,
+            final Strategie strategie) {
+        this(null, donneesSimulation, eventManager, strategie);
+    }
+
     public void schedule(final long date, final Action action) {
         this.eventManager.schedule(date, action);
     }
 
+    /**
+     * Choix du mode d'avancement de la date courante.
+     * 
+     * @param timeAdvance
+     * @param maxIncrement avancement maximal en mode NEXT_EVENT (utile pour
+     *                     garder un affichage régulier), 0 pour ne pas limiter
+     *                     l'avancement
+     * @see TimeAdvance
+     */
+    public void setTimeAdvance(final TimeAdvance timeAdvance, final long maxIncrement) {
+        this.timeAdvance = timeAdvance;
+        this.maxIncrement = maxIncrement;
+    }
+
+    /**
+     * @return la date à laquelle reprendre la simulation à la prochaine itération
+     * @see EventManager#getNextEventDate()
+     */
+    private long getNextDate() {
+        final long currentDate = eventManager.getCurrentDate();
+        if (timeAdvance == TimeAdvance.FIXED) {
+            return currentDate + INCREMENT;
+        }
+        final long nextEventDate = eventManager.getNextEventDate();
+        // s'il n'y a plus d'event on avance comme en mode FIXED, la stratégie
+        // peut encore en ajouter
+        long nextDate = (nextEventDate == Long.MAX_VALUE) ? currentDate + INCREMENT : nextEventDate;
+        if (maxIncrement > 0) {
+            nextDate = Math.min(nextDate, currentDate + maxIncrement);
+        }
+        return nextDate;
+    }
+
     /**
      * @see Simulable#next()
      * @see Strategie#execute(Simulateur)
      * @see EventManager#executeNextEvents()
      * @see EventManager#getCurrentDate()
      * @see EventManager#setCurrentDate(long)
+     * @see #getNextDate()
      * @see GraphicsComponent#draw()
      */
     @Override
@@ -88,11 +158,12 @@ public class Simulateur implements Simulable {
         this.eventManager.executeNextEvents();
 
         LOGGER.info("Ancienne date courante: {}", eventManager.getCurrentDate());
-        eventManager.setCurrentDate(eventManager.getCurrentDate() + INCREMENT);
+        eventManager.setCurrentDate(getNextDate());
         LOGGER.info("Nouvelle date courante: {}", eventManager.getCurrentDate());
 
         // Update de l'affichage
-        this.graphicsComponent.draw();
+        if (this.graphicsComponent != null)
+            this.graphicsComponent.draw();
     }
 
     /**
@@ -117,19 +188,25 @@ public class Simulateur implements Simulable {
         eventManager.reset();
 
         // Update de la stratégie
-        if (strategie != null)
+        if (strategie != null) {
             strategie.setDate(0L);
             strategie.getEventAdder().setDonneesSimulation(donneesSimulation);
             strategie.getEventAdder().setEventManager(eventManager);
-
+        }
 
         // Update de l'affichage
-        this.graphicsComponent.setDonneesSimulation(donneesSimulation);
-        this.graphicsComponent.reset();
-        this.graphicsComponent.draw();
+        if (this.graphicsComponent != null) {
+            this.graphicsComponent.setDonneesSimulation(donneesSimulation);
+            this.graphicsComponent.reset();
+            this.graphicsComponent.draw();
+        }
     }
 
     public DonneesSimulation getDonneesSimulation() {
         return donneesSimulation;
     }
+
+    public EventManager getEventManager() {
+        return eventManager;
+    }
 }
\ No newline at end of file
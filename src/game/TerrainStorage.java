@@ -0,0 +1,25 @@
+package game;
+
+/**
+ * Stockage du code de terrain de chaque position d'une carte: ordinal + 1 de
+ * la nature du terrain, 0 si le terrain n'est pas connu. Les positions reçues
+ * ont déjà été vérifiées par la carte.
+ *
+ * @author Nicolas Vincent
+ * @see Carte#Carte(int, int, int, TerrainStorage)
+ * @see ArrayTerrainStorage
+ * @see MappedTerrainStorage
+ */
+public interface TerrainStorage {
+    /**
+     * @param position
+     * @return code du terrain de la position
+     */
+    byte get(int position);
+
+    /**
+     * @param position
+     * @param code     code du terrain de la position
+     */
+    void set(int position, byte code);
+}
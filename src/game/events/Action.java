@@ -50,6 +50,16 @@ public abstract class Action {
      */
     public abstract long getDuration() throws IllegalArgumentException;
     
+    /**
+     * Une action peut s'étaler sur plusieurs events, comme le parcours d'un
+     * chemin case par case.
+     * 
+     * @return true si l'action doit être exécutée de nouveau à la fin de sa durée
+     */
+    public boolean hasNext() {
+        return false;
+    }
+
     /**
      * Utilisé pour copier un Event
      * 
@@ -44,6 +44,8 @@ public class ActionEmpty extends Action {
      * @see Robot#getPosition()
      * @see Robot#getVolume()
      * @see Robot#deverserEau()
+     * @see DonneesSimulation#addEauDeversee(double)
+     * @see DonneesSimulation#updateIncendie(int, int)
      */
     @Override
     public void execute() {
@@ -62,13 +64,14 @@ public class ActionEmpty extends Action {
             // test != 0 because we make sure there cannot be < 0 values
             while (robot.getVolume() != 0.0 && intensity != 0) {
                 double emptiedVolume = robot.deverserEau();
+                getDonneesSimulation().addEauDeversee(emptiedVolume);
                 if (intensity < emptiedVolume) {
                     LOGGER.info( "La quantité d'eau à déverser ({} L) est supérieure à l'intensité de l'incendie' ({})", emptiedVolume, intensity);
                     emptiedVolume = intensity;
                 }
                 intensity -= (int) emptiedVolume;
-                incendies.put(position, intensity);
             }
+            getDonneesSimulation().updateIncendie(position, intensity);
         }
         LOGGER.info("Il contient maintenant {}L d'eau", this.robot.getVolume());
     }
@@ -1,8 +1,5 @@
 package game.events;
 
-import java.util.ArrayList;
-import java.util.Map;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,9 +45,8 @@ public class ActionMove extends Action {
      * Déplace le robot (si possible)
      * 
      * @see DonneesSimulation#getCarte()
-     * @see DonneesSimulation#getRobots()
+     * @see DonneesSimulation#deplacerRobot(Robot, int)
      * @see Robot#getPosition()
-     * @see Robot#setPosition(Integer)
      * @see Robot#checkWalkable(game.NatureTerrain)
      * @see Carte#getVoisin(int, Direction)
      * @see Carte#getTerrain(int)
@@ -58,7 +54,6 @@ public class ActionMove extends Action {
     @Override
     public void execute() {
         final Carte carte = getDonneesSimulation().getCarte();
-        final Map<Integer, ArrayList<Robot>> robots = getDonneesSimulation().getRobots();
 
         final int position = this.robot.getPosition();
 
@@ -70,12 +65,7 @@ public class ActionMove extends Action {
             
             LOGGER.info("Déplacement: {} initialement en {} se déplace en {} ", this.robot, position, newPosition);
 
-            // update the robot position
-            this.robot.setPosition(newPosition);
-            // delete the robot
-            robots.get(position).remove(this.robot);
-            // add the robot
-            robots.computeIfAbsent(newPosition, k -> new ArrayList<Robot>()).add(this.robot);
+            getDonneesSimulation().deplacerRobot(this.robot, newPosition);
         } catch (final IllegalArgumentException e) {
             LOGGER.warn(e.getMessage());
         }
@@ -0,0 +1,114 @@
+package game.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.DonneesSimulation;
+import game.pathfinding.CostGrid;
+import game.pathfinding.Path;
+import game.robots.Robot;
+
+/**
+ * Parcours d'un chemin case par case. Un seul event représente tout le
+ * chemin: à chaque exécution le robot avance d'une case et l'event est
+ * replanifié à la fin du déplacement tant que le chemin n'est pas terminé.
+ * 
+ * @author Nicolas Vincent
+ * @see Robot
+ * @see EventAdder#scheduleActionsMove(Robot, Path, long)
+ */
+public class ActionPath extends Action {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActionPath.class);
+
+    private final Robot robot;
+
+    private final Path path;
+
+    /**
+     * Indice du prochain pas dans path
+     */
+    private int step = 0;
+
+    /**
+     * Position sur laquelle le robot doit se trouver avant le prochain pas
+     */
+    private int position;
+
+    /**
+     * @param donneesSimulation
+     * @param robot
+     * @param path chemin partant de la position du robot
+     * @see Action#Action(DonneesSimulation, game.Entity)
+     */
+    public ActionPath(final DonneesSimulation donneesSimulation, final Robot robot, final Path path) {
+        super(donneesSimulation, robot);
+        this.robot = robot;
+        this.path = path;
+        this.position = path.getStart();
+    }
+
+    /**
+     * @param donneesSimulation
+     * @return nouvelle instance de la classe, au début du chemin
+     * @see ActionPath#ActionPath(DonneesSimulation, Robot, Path)
+     */
+    @Override
+    public Action copy(final DonneesSimulation donneesSimulation) {
+        return new ActionPath(donneesSimulation, this.robot, this.path);
+    }
+
+    /**
+     * Déplace le robot sur la case suivante du chemin. Si le robot n'est plus
+     * sur le chemin ou ne peut pas se déplacer, le reste du chemin est abandonné.
+     * 
+     * @see DonneesSimulation#deplacerRobot(Robot, int)
+     * @see Robot#checkWalkable(game.NatureTerrain)
+     */
+    @Override
+    public void execute() {
+        final int position = this.robot.getPosition();
+        final int newPosition = this.path.getCostGrid().getVoisin(this.position, this.path.getDirection(this.step));
+        if (position != this.position) {
+            LOGGER.warn("{} n'est plus sur son chemin, le déplacement est abandonné", this.robot);
+            this.step = this.path.getNbSteps();
+            return;
+        }
+        try {
+            // throws IllegalArgumentException if the robot can't move on the position
+            this.robot.checkWalkable(getDonneesSimulation().getCarte().getTerrain(newPosition));
+        } catch (final IllegalArgumentException e) {
+            LOGGER.warn(e.getMessage());
+            this.step = this.path.getNbSteps();
+            return;
+        }
+        LOGGER.info("Déplacement: {} initialement en {} se déplace en {} ", this.robot, position, newPosition);
+        getDonneesSimulation().deplacerRobot(this.robot, newPosition);
+        this.position = newPosition;
+        this.step++;
+    }
+
+    /**
+     * @return true tant que le robot n'est pas au bout du chemin
+     */
+    @Override
+    public boolean hasNext() {
+        return this.step < this.path.getNbSteps();
+    }
+
+    /**
+     * @return temps mis par le robot pour se déplacer sur la case suivante
+     * @throws IllegalArgumentException if the robot can't move on the position
+     * @see CostGrid#getCost(int, int)
+     */
+    @Override
+    public long getDuration() throws IllegalArgumentException {
+        final CostGrid costGrid = CostGrid.get(getDonneesSimulation().getCarte(), this.robot);
+        final int direction = this.path.getDirection(this.step);
+        final int cost = costGrid.getCost(this.position, direction);
+        if (cost == CostGrid.IMPASSABLE) {
+            throw new IllegalArgumentException(
+                    this.robot + " ne peut pas se déplacer en " + costGrid.getVoisin(this.position, direction));
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,75 @@
+package game.events;
+
+import java.util.Arrays;
+
+/**
+ * Tas binaire stocké dans un tableau.
+ * 
+ * @author Nicolas Vincent
+ * @see EventQueue
+ */
+public class BinaryHeapEventQueue implements EventQueue {
+    private Event[] heap = new Event[16];
+    private int size = 0;
+
+    @Override
+    public void add(final Event event) {
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.size * 2);
+        }
+        siftUp(this.size++, event);
+    }
+
+    @Override
+    public Event peek() {
+        return (this.size == 0) ? null : this.heap[0];
+    }
+
+    @Override
+    public Event poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        final Event first = this.heap[0];
+        final Event last = this.heap[--this.size];
+        this.heap[this.size] = null;
+        if (this.size > 0) {
+            siftDown(0, last);
+        }
+        return first;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    private void siftUp(int index, final Event event) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (this.heap[parent].getDate() <= event.getDate()) {
+                break;
+            }
+            this.heap[index] = this.heap[parent];
+            index = parent;
+        }
+        this.heap[index] = event;
+    }
+
+    private void siftDown(int index, final Event event) {
+        final int half = this.size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            final int right = child + 1;
+            if (right < this.size && this.heap[right].getDate() < this.heap[child].getDate()) {
+                child = right;
+            }
+            if (event.getDate() <= this.heap[child].getDate()) {
+                break;
+            }
+            this.heap[index] = this.heap[child];
+            index = child;
+        }
+        this.heap[index] = event;
+    }
+}
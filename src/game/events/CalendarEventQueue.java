@@ -0,0 +1,257 @@
+package game.events;
+
+/**
+ * File calendrier (R. Brown, 1988). Les events sont répartis dans des buckets
+ * correspondant à des intervalles de dates de largeur fixe, comme les jours
+ * d'une année. Le nombre de buckets suit le nombre d'events et leur largeur est
+ * estimée à partir de l'écart moyen entre les premiers events, de sorte que
+ * l'ajoût et le retrait sont en O(1) amorti pour des dates proches et presque
+ * croissantes.
+ * 
+ * @author Nicolas Vincent
+ * @see EventQueue
+ */
+public class CalendarEventQueue implements EventQueue {
+    /**
+     * Le nombre de buckets est toujours une puissance de deux
+     */
+    private static final int MIN_BUCKETS = 2;
+
+    /**
+     * Nombre d'events utilisés pour estimer la largeur des buckets
+     */
+    private static final int WIDTH_SAMPLE = 25;
+
+    /**
+     * Un bucket n'est alloué qu'à son premier event: après un redimensionnement,
+     * la plupart des buckets d'une année restent vides
+     */
+    private EventBucket[] buckets;
+    private long width = 1;
+    private int size = 0;
+
+    /**
+     * Début de l'intervalle du bucket courant. Aucun event n'a une date
+     * inférieure.
+     */
+    private long bucketStart = 0;
+    private int currentBucket = 0;
+
+    /**
+     * Bucket contenant le plus petit event, -1 s'il n'est pas connu
+     */
+    private int minBucket = -1;
+
+    public CalendarEventQueue() {
+        this.buckets = new EventBucket[MIN_BUCKETS];
+    }
+
+    /**
+     * @param index
+     * @return plus petit event du bucket, null s'il est vide
+     */
+    private Event peekMin(final int index) {
+        final EventBucket bucket = this.buckets[index];
+        return (bucket == null) ? null : bucket.peekMin();
+    }
+
+    /**
+     * @param date
+     * @return indice du bucket de la date, le nombre de buckets étant une
+     *         puissance de deux le modulo est un masque
+     */
+    private int bucketIndex(final long date) {
+        return (int) (Math.floorDiv(date, this.width) & (this.buckets.length - 1));
+    }
+
+    @Override
+    public void add(final Event event) {
+        insert(event);
+        this.size++;
+        if (this.size > 2 * this.buckets.length) {
+            resize(2 * this.buckets.length);
+        }
+    }
+
+    /**
+     * Un event antérieur au bucket courant fait reculer le calendrier
+     * 
+     * @param date date d'un event ajoûté
+     */
+    private void moveBack(final long date) {
+        if (this.size == 0 || date < this.bucketStart) {
+            this.bucketStart = Math.floorDiv(date, this.width) * this.width;
+            this.currentBucket = bucketIndex(date);
+        }
+    }
+
+    private void insert(final Event event) {
+        final long date = event.getDate();
+        moveBack(date);
+        final int index = bucketIndex(date);
+        // le plus petit event ne change que si le nouveau le précède
+        if (this.minBucket >= 0 && date < peekMin(this.minBucket).getDate()) {
+            this.minBucket = index;
+        }
+        if (this.buckets[index] == null) {
+            this.buckets[index] = new EventBucket();
+        }
+        this.buckets[index].add(event);
+    }
+
+    @Override
+    public Event peek() {
+        if (this.size == 0) {
+            return null;
+        }
+        return peekMin(findMinBucket());
+    }
+
+    @Override
+    public Event poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        final EventBucket bucket = this.buckets[findMinBucket()];
+        final Event event = bucket.pollMin();
+        // les events du bucket courant qui tombent dans son intervalle précèdent
+        // tous les autres
+        final Event next = bucket.peekMin();
+        if (next == null || next.getDate() >= this.bucketStart + this.width) {
+            this.minBucket = -1;
+        }
+        this.size--;
+        if (this.size < this.buckets.length / 2 && this.buckets.length > MIN_BUCKETS) {
+            resize(this.buckets.length / 2);
+        }
+        return event;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Parcourt les buckets à partir du bucket courant sur une année. Si aucun
+     * event ne tombe dans l'intervalle de son bucket, on cherche directement le
+     * plus petit event.
+     * 
+     * @return indice du bucket contenant le plus petit event
+     */
+    private int findMinBucket() {
+        if (this.minBucket >= 0) {
+            return this.minBucket;
+        }
+        final int nbBuckets = this.buckets.length;
+        long end = this.bucketStart + this.width;
+        for (int k = 0; k < nbBuckets; k++) {
+            final int index = (this.currentBucket + k) % nbBuckets;
+            final Event first = peekMin(index);
+            if (first != null && first.getDate() < end) {
+                this.currentBucket = index;
+                this.bucketStart = end - this.width;
+                this.minBucket = index;
+                return index;
+            }
+            end += this.width;
+        }
+
+        // recherche directe
+        Event min = null;
+        for (int index = 0; index < nbBuckets; index++) {
+            final Event first = peekMin(index);
+            if (first != null && (min == null || first.getDate() < min.getDate())) {
+                min = first;
+                this.minBucket = index;
+            }
+        }
+        this.currentBucket = this.minBucket;
+        this.bucketStart = Math.floorDiv(min.getDate(), this.width) * this.width;
+        return this.minBucket;
+    }
+
+    /**
+     * Change le nombre de buckets et recalcule leur largeur. Un ancien bucket
+     * dont tous les events tombent dans le même intervalle de la nouvelle
+     * largeur est déplacé tel quel si son nouveau bucket est vide: c'est le cas
+     * courant lorsque la largeur ne change pas. Sinon ses events sont ajoûtés
+     * un par un, par date croissante, chacun en fin de son nouveau bucket.
+     * 
+     * @param nbBuckets
+     */
+    private void resize(final int nbBuckets) {
+        final EventBucket[] oldBuckets = this.buckets;
+        this.width = estimateWidth(oldBuckets);
+        this.buckets = new EventBucket[nbBuckets];
+        this.minBucket = -1;
+        final int count = this.size;
+        this.size = 0;
+        for (final EventBucket bucket : oldBuckets) {
+            if (bucket == null || bucket.isEmpty())
+                continue;
+            final long first = bucket.peekMin().getDate();
+            final long last = bucket.get(bucket.size() - 1).getDate();
+            final int index = bucketIndex(first);
+            if (Math.floorDiv(first, this.width) == Math.floorDiv(last, this.width)
+                    && this.buckets[index] == null) {
+                moveBack(first);
+                this.buckets[index] = bucket;
+                this.size += bucket.size();
+                continue;
+            }
+            for (int i = 0; i < bucket.size(); i++) {
+                insert(bucket.get(i));
+                this.size++;
+            }
+        }
+        assert this.size == count;
+    }
+
+    /**
+     * La largeur vaut trois fois l'écart moyen entre les WIDTH_SAMPLE premiers
+     * events, en ignorant les écarts plus de deux fois supérieurs à la moyenne.
+     * Les premiers events sont sélectionnés sans trier la file: chaque bucket
+     * étant trié, on n'en lit que le début.
+     * 
+     * @param buckets
+     * @return largeur des buckets
+     */
+    private long estimateWidth(final EventBucket[] buckets) {
+        final long[] dates = new long[WIDTH_SAMPLE];
+        int sample = 0;
+        for (final EventBucket bucket : buckets) {
+            if (bucket == null)
+                continue;
+            for (int i = 0; i < bucket.size(); i++) {
+                final long date = bucket.get(i).getDate();
+                if (sample == WIDTH_SAMPLE && date >= dates[sample - 1])
+                    break;
+                // insertion dans les dates triées, la plus grande est perdue si
+                // l'échantillon est plein
+                int j = (sample < WIDTH_SAMPLE) ? sample++ : sample - 1;
+                while (j > 0 && dates[j - 1] > date) {
+                    dates[j] = dates[j - 1];
+                    j--;
+                }
+                dates[j] = date;
+            }
+        }
+        if (sample < 2) {
+            return this.width;
+        }
+
+        final long total = dates[sample - 1] - dates[0];
+        final double average = (double) total / (sample - 1);
+        long sum = 0;
+        int count = 0;
+        for (int i = 1; i < sample; i++) {
+            final long gap = dates[i] - dates[i - 1];
+            if (gap <= 2 * average) {
+                sum += gap;
+                count++;
+            }
+        }
+        return Math.max(1, (count == 0) ? 1 : 3 * sum / count);
+    }
+}
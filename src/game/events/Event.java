@@ -43,13 +43,14 @@ public class Event implements Comparable<Event> {
     }
 
     /**
-     * Change la date de l'event si elle arrive entre la date courante et la fin d'un event précédent
+     * Change la date de l'event si elle arrive avant la fin d'un event précédent
+     * de la même entité
      * 
-     * @param currentDate
-     * @param duration
+     * @param currentDate date de l'event précédent
+     * @param duration durée de l'event précédent
      */
     public void updateDate(final long currentDate, final long duration) {
-        if (currentDate < this.date && this.date < currentDate + duration) {
+        if (this.date < currentDate + duration) {
             this.date = currentDate + duration;
         }
     }
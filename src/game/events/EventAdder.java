@@ -1,9 +1,7 @@
 package game.events;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-
 import game.DonneesSimulation;
+import game.pathfinding.Path;
 import game.robots.Robot;
 
 /**
@@ -31,26 +29,23 @@ public abstract class EventAdder {
     }
 
     /**
-     * Ajout d'une suite d'events déplacements à la simulation
+     * Ajout d'un event parcourant le chemin à la simulation. Un seul event est
+     * ajouté quelle que soit la longueur du chemin.
      * 
      * @param robot
      * @param path
      * @param date compteur externe ordonnant les déplacements
+     * @return date de fin du parcours
      * @see EventManager#schedule(long, Action)
-     * @see ActionMove#ActionMove(DonneesSimulation, Robot, game.Direction)
-     * @see Carte#getDirection(int, int)
+     * @see ActionPath#ActionPath(DonneesSimulation, Robot, Path)
+     * @see Path#getDuration()
      */
-    public long scheduleActionsMove(final Robot robot, final LinkedList<Integer> path, long date) {
-        final Iterator<Integer> iter = path.iterator();
-        int currentPosition = iter.next();
-        while (iter.hasNext()) {
-            final int nextPosition = iter.next();
-            eventManager.schedule(date, new ActionMove(this.donneesSimulation, robot,
-                    this.donneesSimulation.getCarte().getDirection(currentPosition, nextPosition)));
-            date += donneesSimulation.getTimeToMove(robot, currentPosition, nextPosition);
-            currentPosition = nextPosition;
+    public long scheduleActionsMove(final Robot robot, final Path path, final long date) {
+        if (path.getNbSteps() == 0) {
+            return date;
         }
-        return date;
+        eventManager.schedule(date, new ActionPath(this.donneesSimulation, robot, path));
+        return date + path.getDuration();
     }
 
     /**
@@ -59,7 +54,7 @@ public abstract class EventAdder {
      * @param robot
      * @param path
      */
-    public abstract void addPath(Robot robot, LinkedList<Integer> path);
+    public abstract void addPath(Robot robot, Path path);
 
     /**
      * Ajoute un event exécutant l'action Empty
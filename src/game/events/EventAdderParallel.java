@@ -1,8 +1,7 @@
 package game.events;
 
-import java.util.LinkedList;
-
 import game.DonneesSimulation;
+import game.pathfinding.Path;
 import game.robots.Robot;
 
 /**
@@ -22,10 +21,10 @@ public class EventAdderParallel extends EventAdder {
     /**
      * @see Robot#getDate()
      * @see Robot#setDate(Long)
-     * @see #scheduleActionsMove(Robot, LinkedList, long)
+     * @see #scheduleActionsMove(Robot, Path, long)
      */
     @Override
-    public void addPath(final Robot robot, final LinkedList<Integer> path) {
+    public void addPath(final Robot robot, final Path path) {
         final long date = scheduleActionsMove(robot, path, robot.getDate());
         robot.setDate(date);
     }
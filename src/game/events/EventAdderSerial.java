@@ -1,8 +1,7 @@
 package game.events;
 
-import java.util.LinkedList;
-
 import game.DonneesSimulation;
+import game.pathfinding.Path;
 import game.robots.Robot;
 import strategie.Strategie;
 
@@ -27,10 +26,10 @@ public class EventAdderSerial extends EventAdder {
     /**
      * @see Strategie#getDate()
      * @see Strategie#setDate(Long)
-     * @see #scheduleActionsMove(Robot, LinkedList, long)
+     * @see #scheduleActionsMove(Robot, Path, long)
      */
     @Override
-    public void addPath(final Robot robot, final LinkedList<Integer> path) {
+    public void addPath(final Robot robot, final Path path) {
         assert this.strategie != null;
         final long date = scheduleActionsMove(robot, path, this.strategie.getDate());
         this.strategie.setDate(date);
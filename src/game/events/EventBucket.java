@@ -0,0 +1,105 @@
+package game.events;
+
+import java.util.Arrays;
+
+/**
+ * Liste d'events triée par date croissante, à partir de l'indice head: l'event
+ * de plus petite date est en tête et se retire en O(1) en avançant head. Pour
+ * des dates presque croissantes, un nouvel event est ajoûté en fin de liste
+ * sans décaler les autres. Les events de même date sont retirés dans leur
+ * ordre d'ajoût. Utilisée pour les buckets des files calendrier et ladder, qui
+ * ne contiennent que peu d'events.
+ *
+ * @author Nicolas Vincent
+ * @see CalendarEventQueue
+ * @see LadderEventQueue
+ */
+class EventBucket {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private Event[] events = new Event[INITIAL_CAPACITY];
+
+    /**
+     * Les events sont dans events[head, tail)
+     */
+    private int head = 0;
+    private int tail = 0;
+
+    /**
+     * Insertion par recherche dichotomique, après les events de même date
+     *
+     * @param event
+     */
+    void add(final Event event) {
+        if (this.tail == this.events.length) {
+            grow();
+        }
+        final long date = event.getDate();
+        // cas courant: l'event suit tous les autres
+        if (isEmpty() || this.events[this.tail - 1].getDate() <= date) {
+            this.events[this.tail++] = event;
+            return;
+        }
+        int low = this.head;
+        int high = this.tail;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (this.events[mid].getDate() <= date) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        System.arraycopy(this.events, low, this.events, low + 1, this.tail - low);
+        this.events[low] = event;
+        this.tail++;
+    }
+
+    /**
+     * Ramène les events au début du tableau, qui est agrandi s'il est plein
+     */
+    private void grow() {
+        final int size = size();
+        if (size > this.events.length / 2) {
+            this.events = Arrays.copyOfRange(this.events, this.head, this.head + 2 * this.events.length);
+        } else {
+            System.arraycopy(this.events, this.head, this.events, 0, size);
+            Arrays.fill(this.events, size, this.tail, null);
+        }
+        this.head = 0;
+        this.tail = size;
+    }
+
+    Event peekMin() {
+        return isEmpty() ? null : this.events[this.head];
+    }
+
+    Event pollMin() {
+        if (isEmpty()) {
+            return null;
+        }
+        final Event event = this.events[this.head];
+        this.events[this.head++] = null;
+        if (this.head == this.tail) {
+            this.head = 0;
+            this.tail = 0;
+        }
+        return event;
+    }
+
+    /**
+     * @param index rang de l'event par date croissante, 0 pour le plus petit
+     * @return l'event de ce rang
+     */
+    Event get(final int index) {
+        return this.events[this.head + index];
+    }
+
+    int size() {
+        return this.tail - this.head;
+    }
+
+    boolean isEmpty() {
+        return this.head == this.tail;
+    }
+}
@@ -1,8 +1,9 @@
 package game.events;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.PriorityQueue;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,8 +15,17 @@ import game.Entity.State;
 import strategie.Strategie;
 
 /**
+ * Ordonnanceur à deux niveaux. Chaque entité possède sa propre file FIFO
+ * d'events, et seule la tête de chacune de ces files est présente dans la
+ * file de priorité globale. Décaler les events d'une entité de la durée d'une
+ * action ne concerne donc que l'event suivant de sa file.
+ * 
+ * L'implémentation de la file de priorité globale est choisie à la
+ * construction.
+ * 
  * @author Nicolas Vincent
- * @see PriorityQueue
+ * @see EventQueue
+ * @see ArrayDeque
  * @see DonneesSimulation
  * @see Strategie
  */
@@ -23,36 +33,66 @@ public class EventManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(EventManager.class);
     
     private long currentDate;
-    private PriorityQueue<Event> eventSet = new PriorityQueue<Event>();
-    private PriorityQueue<Event> eventSetSaved = null;
+
+    /**
+     * Date du dernier event exécuté et nombre d'events exécutés depuis le dernier reset
+     */
+    private long lastEventDate = 0;
+    private long executedEventsCount = 0;
+
+    private final EventQueue.Type eventQueueType;
+
+    /**
+     * Contient uniquement le prochain event de chaque entité
+     */
+    private EventQueue eventSet;
+
+    /**
+     * File des events de chaque entité, dans l'ordre où ils ont été ajoutés
+     */
+    private final Map<Entity, ArrayDeque<Event>> entityEvents = new HashMap<Entity, ArrayDeque<Event>>();
+
+    private ArrayList<Event> eventSetSaved = null;
 
     private DonneesSimulation donneesSimulation;
     private Strategie strategie = null;
 
     /**
-     * Constructeur sans stratégie. On instancie une queue de sauvegarde.
+     * Constructeur sans stratégie. On instancie une liste de sauvegarde.
      * 
      * @param donneesSimulation
-     * @see PriorityQueue
+     * @see EventQueue.Type#BINARY_HEAP
      */
     public EventManager(final DonneesSimulation donneesSimulation) {
-        this.donneesSimulation = donneesSimulation;
-        eventSetSaved = new PriorityQueue<Event>();
+        this(donneesSimulation, null);
     }
 
     /**
-     * Constructeur avec stratégie. On n'instancie pas de queue de sauvegarde s'il
+     * Constructeur avec stratégie. On n'instancie pas de liste de sauvegarde s'il
      * n'y a pas de stratégie
      * 
      * @param donneesSimulation
      * @param strategie
-     * @see PriorityQueue
+     * @see EventQueue.Type#BINARY_HEAP
      */
     public EventManager(final DonneesSimulation donneesSimulation, final Strategie strategie) {
+        this(donneesSimulation, strategie, EventQueue.Type.BINARY_HEAP);
+    }
+
+    /**
+     * @param donneesSimulation
+     * @param strategie
+     * @param eventQueueType implémentation de la file de priorité globale
+     * @see EventQueue#create(EventQueue.Type)
+     */
+    public EventManager(final DonneesSimulation donneesSimulation, final Strategie strategie,
+            final EventQueue.Type eventQueueType) {
         this.donneesSimulation = donneesSimulation;
         this.strategie = strategie;
+        this.eventQueueType = eventQueueType;
+        this.eventSet = EventQueue.create(eventQueueType);
         if (strategie == null) {
-            eventSetSaved = new PriorityQueue<Event>();
+            eventSetSaved = new ArrayList<Event>();
         }
     }
 
@@ -63,39 +103,58 @@ public class EventManager {
      * @param action
      * @see Event#Event(long, Action)
      * @see Event#copy(DonneesSimulation)
+     * @see #enqueue(Event)
      */
     public void schedule(final long date, final Action action) {
         LOGGER.info("Date de l'évènement (ajoût): {}", date);
         final Event event = new Event(date, action);
 
-        this.eventSet.add(event);
-        // ajout à la queue de sauvegarde
+        enqueue(event);
+        // ajout à la liste de sauvegarde
         if (strategie == null) {
             this.eventSetSaved.add(event.copy(this.donneesSimulation));
         }
     }
 
+    /**
+     * Ajoute l'event à la fin de la file de son entité. Si la file était vide,
+     * l'event devient la tête de file et entre dans eventSet.
+     * 
+     * @param event
+     * @see Action#getEntity()
+     */
+    private void enqueue(final Event event) {
+        final ArrayDeque<Event> events = this.entityEvents.computeIfAbsent(event.getAction().getEntity(),
+                k -> new ArrayDeque<Event>());
+        if (events.isEmpty()) {
+            this.eventSet.add(event);
+        }
+        events.addLast(event);
+    }
+
     /**
      * Execute les évènements présents entre deux dates.
      * 
-     * @see #rescheduleEvents(Event, long)
+     * @see #promoteNextEvent(Event, long)
      * @see Event#getDate()
      * @see Event#getAction()
      * @see Action#getDuration()
      * @see Action#execute()
+     * @see Action#hasNext()
      * @see Robot#getState()
      * @see Robot#setState(State)
      */
     public void executeNextEvents() {
-        // peek/remove is faster than poll/add
         Event event;
         while ((event = eventSet.peek()) != null && event.getDate() <= this.currentDate) {
+            eventSet.poll();
             LOGGER.info("Date de l'évènement (execution): {}", event.getDate());
 
             // On récupère la durée de l'event si l'event est valide sinon la durée de
             // l'event est nulle
             // On exécute ensuite l'action pour le robot si l'action est valide
             long duration = 0;
+            boolean executed = false;
             final Action eventAction = event.getAction();
             try {
                 // throws IllegalArgumentException if outside the map or if the robot can't move
@@ -104,85 +163,80 @@ public class EventManager {
                 // throws IllegalArgumentException if outside the map or if the robot can't move
                 // on the position (EventMove)
                 eventAction.execute();
-                // LOGGER.info("Il y a {} events concernant le robot {}", sameRobotEventsCount -
-                // 1, event.getRobot().getId());
+                executed = true;
             } catch (final IllegalArgumentException e) {
                 LOGGER.warn(e.getMessage());
             }
             LOGGER.info("Fin d'exécution: {}", duration);
+            this.lastEventDate = event.getDate();
+            this.executedEventsCount++;
 
-            // On récupère le nombre d'events concernant le même robot et on update leurs
-            // dates. Si la durée est nulle la date reste inchangée.
-            // On a ainsi le bon nombre d'events concernant le même robot si on a une action
-            // non valide suivie d'actions valides
-            final int sameRobotEventsCount = rescheduleEvents(event, duration);
+            // Une action qui continue (ActionPath) reste en tête de la file de son entité
+            // et est de nouveau exécutée à la fin de sa durée
+            if (executed && eventAction.hasNext()) {
+                event.updateDate(event.getDate(), duration);
+                eventSet.add(event);
+                continue;
+            }
 
-            // S'il n'y a plus qu'un event concernant ce robot (cet event vient d'être
-            // exécuté) alors le robot est de nouveau libre
-            final Entity eventEntity = eventAction.getEntity();
-            if (sameRobotEventsCount == 1) {
+            // Le prochain event de l'entité est décalé de la durée de l'event et prend sa
+            // place dans eventSet. Si la file de l'entité est vide, elle est de nouveau
+            // libre
+            if (!promoteNextEvent(event, duration)) {
+                final Entity eventEntity = eventAction.getEntity();
                 assert eventEntity.getState() == State.BUSY;
                 eventEntity.setState(State.FREE);
                 LOGGER.info("Le robot {} est FREE", eventEntity.getId());
             }
-            eventSet.remove(event);
         }
     }
 
     /**
-     * Il faut réordonner la priority queue si le robot peut exécuter l'action. Tous
-     * les events du robot exécutant l'action doivent être incrémentés de la durée
-     * de l'action. On en profite pour compter le nombre d'events concernant le même
-     * robot
+     * Retire l'event exécuté de la file de son entité. L'entité est occupée
+     * pendant duration, le prochain event de sa file ne peut donc pas commencer
+     * avant la fin de l'event exécuté. Seul ce prochain event est décalé, les
+     * suivants le seront lorsqu'ils arriveront en tête de file.
      * 
-     * @param event
-     * @param duration durée de l'event passé en argument
-     * @return nombre d'events concernant le même robot dans eventSet
+     * @param event      event qui vient d'être exécuté
+     * @param duration   durée de l'event passé en argument
+     * @return false si l'entité n'a plus d'events
      * @see Event#getAction()
-     * @see Event#updateDate(long)
+     * @see Event#updateDate(long, long)
      * @see Action#getEntity()
      */
-    private int rescheduleEvents(final Event event, final long duration) throws IllegalArgumentException {
-        // le robot est occupé pendant duration, on ne peut plus exécuter d'actions avec
-        // ce robot. Il faut incrémenter la date des évènements de ce robot de duration
-        int count = 0; // compteur des occurrences du robot dans eventSet
-        final ArrayList<Event> eventsToAdd = new ArrayList<Event>();
-        final Iterator<Event> events = this.eventSet.iterator();
-        while (events.hasNext()) {
-            final Event currentEvent = events.next();
-            // problème d'égalité possible si l'égalité des volumes est vérifiée dans
-            // equals(). On implémente un id propre à chaque robot qui vérifie l'égalité
-            if (currentEvent.getAction().getEntity().equals(event.getAction().getEntity())) {
-                // on incrémente la date de l'event de la durée de l'event exécuté
-                currentEvent.updateDate(event.getDate(), duration);
-                if (event.getDate() < currentEvent.getDate() && currentEvent.getDate() < event.getDate() + duration) {
-                    // System.out.println(event.getDate() + " < " + currentEvent.getDate() + " < " +
-                    // (event.getDate() + duration));
-                    // System.out.println(event.getAction().getEntity() + ", Nouvelle date: " +
-                    // currentEvent.getDate());
-                    LOGGER.info("Nouvelle date de l'évènement: {}", currentEvent.getDate());
-                }
-                count++;
-                events.remove();
-                eventsToAdd.add(currentEvent);
-            }
+    private boolean promoteNextEvent(final Event event, final long duration) {
+        final ArrayDeque<Event> events = this.entityEvents.get(event.getAction().getEntity());
+        events.pollFirst();
+
+        final Event nextEvent = events.peekFirst();
+        if (nextEvent == null) {
+            return false;
         }
-        this.eventSet.addAll(eventsToAdd);
-        return count;
+        final long oldDate = nextEvent.getDate();
+        nextEvent.updateDate(event.getDate(), duration);
+        if (oldDate != nextEvent.getDate()) {
+            LOGGER.info("Nouvelle date de l'évènement: {}", nextEvent.getDate());
+        }
+        this.eventSet.add(nextEvent);
+        return true;
     }
 
     /**
-     * Reinitialise la queue.
+     * Reinitialise les files.
      * 
-     * @see PriorityQueue
+     * @see EventQueue#create(EventQueue.Type)
      * @see Event#copy(DonneesSimulation)
+     * @see #enqueue(Event)
      */
     public void reset() {
-        this.eventSet = new PriorityQueue<Event>();
+        this.eventSet = EventQueue.create(this.eventQueueType);
+        this.entityEvents.clear();
+        this.lastEventDate = 0;
+        this.executedEventsCount = 0;
         if (strategie == null) {
             // donneesSimulation et pas donneesSimulationSaved pcq on modifie l'argument
             // lorsque l'on exécute l'event
-            this.eventSetSaved.stream().forEach((event) -> eventSet.add(event.copy(this.donneesSimulation)));
+            this.eventSetSaved.stream().forEach((event) -> enqueue(event.copy(this.donneesSimulation)));
         }
     }
 
@@ -190,6 +244,22 @@ public class EventManager {
         return currentDate;
     }
 
+    /**
+     * @return date du prochain event, Long.MAX_VALUE s'il n'y en a pas
+     */
+    public long getNextEventDate() {
+        final Event event = this.eventSet.peek();
+        return (event == null) ? Long.MAX_VALUE : event.getDate();
+    }
+
+    public long getLastEventDate() {
+        return lastEventDate;
+    }
+
+    public long getExecutedEventsCount() {
+        return executedEventsCount;
+    }
+
     public void setCurrentDate(final long currentDate) {
         this.currentDate = currentDate;
     }
@@ -0,0 +1,59 @@
+package game.events;
+
+/**
+ * File de priorité d'events, ordonnée par date croissante. Les events de même
+ * date sont renvoyés dans un ordre quelconque.
+ * 
+ * @author Nicolas Vincent
+ * @see Event
+ * @see EventManager
+ */
+public interface EventQueue {
+
+    /**
+     * Implémentations disponibles
+     */
+    public static enum Type {
+        BINARY_HEAP,
+        CALENDAR,
+        LADDER
+    }
+
+    /**
+     * @param type
+     * @return nouvelle file vide du type demandé
+     * @see BinaryHeapEventQueue
+     * @see CalendarEventQueue
+     * @see LadderEventQueue
+     */
+    static EventQueue create(final Type type) {
+        switch (type) {
+            case CALENDAR:
+                return new CalendarEventQueue();
+            case LADDER:
+                return new LadderEventQueue();
+            default:
+                return new BinaryHeapEventQueue();
+        }
+    }
+
+    void add(Event event);
+
+    /**
+     * @return l'event de plus petite date, null si la file est vide
+     */
+    Event peek();
+
+    /**
+     * Retire l'event de plus petite date.
+     * 
+     * @return l'event retiré, null si la file est vide
+     */
+    Event poll();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
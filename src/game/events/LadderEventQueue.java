@@ -0,0 +1,175 @@
+package game.events;
+
+import java.util.ArrayList;
+
+/**
+ * Ladder queue (W. T. Tang, R. S. M. Goh, I. L.-J. Thng, 2005). Les events
+ * lointains sont stockés sans être triés dans top. Lorsqu'il faut les retirer,
+ * ils sont répartis dans des buckets (un rung); un bucket trop rempli est à son
+ * tour réparti dans un rung plus fin. Seul le bucket courant, de petite
+ * taille, est trié dans bottom. Ajoût et retrait sont en O(1) amorti.
+ * 
+ * @author Nicolas Vincent
+ * @see EventQueue
+ */
+public class LadderEventQueue implements EventQueue {
+
+    /**
+     * Taille à partir de laquelle un bucket est réparti dans un nouveau rung
+     * plutôt que trié dans bottom
+     */
+    private static final int THRESHOLD = 50;
+
+    /**
+     * Un rung découpe l'intervalle [start, start + nbBuckets * width) en buckets
+     * de largeur width. Les buckets d'indice inférieur à current ont été vidés.
+     */
+    private static class Rung {
+        private final long start;
+        private final long width;
+        private final ArrayList<Event>[] buckets;
+        private int current = 0;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Rung(final long start, final long width, final int nbBuckets) {
+            this.start = start;
+            this.width = width;
+            this.buckets = new ArrayList[nbBuckets];
+        }
+
+        /**
+         * @return début du bucket courant, les events antérieurs vont dans un rung
+         *         inférieur ou dans bottom
+         */
+        long currentStart() {
+            return this.start + this.current * this.width;
+        }
+
+        long end() {
+            return this.start + this.buckets.length * this.width;
+        }
+
+        void add(final Event event) {
+            final int index = (int) ((event.getDate() - this.start) / this.width);
+            if (this.buckets[index] == null) {
+                this.buckets[index] = new ArrayList<Event>();
+            }
+            this.buckets[index].add(event);
+        }
+    }
+
+    private final ArrayList<Event> top = new ArrayList<Event>();
+    private long topMin = Long.MAX_VALUE;
+    private long topMax = Long.MIN_VALUE;
+
+    /**
+     * Les events de date supérieure ou égale à topStart vont dans top
+     */
+    private long topStart = Long.MIN_VALUE;
+
+    private final ArrayList<Rung> rungs = new ArrayList<Rung>();
+    private final EventBucket bottom = new EventBucket();
+    private int size = 0;
+
+    @Override
+    public void add(final Event event) {
+        this.size++;
+        final long date = event.getDate();
+        if (date >= this.topStart) {
+            this.top.add(event);
+            this.topMin = Math.min(this.topMin, date);
+            this.topMax = Math.max(this.topMax, date);
+            return;
+        }
+        for (final Rung rung : this.rungs) {
+            if (date >= rung.currentStart()) {
+                rung.add(event);
+                return;
+            }
+        }
+        this.bottom.add(event);
+    }
+
+    @Override
+    public Event peek() {
+        if (this.bottom.isEmpty() && !refillBottom()) {
+            return null;
+        }
+        return this.bottom.peekMin();
+    }
+
+    @Override
+    public Event poll() {
+        if (this.bottom.isEmpty() && !refillBottom()) {
+            return null;
+        }
+        this.size--;
+        return this.bottom.pollMin();
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Transfère le prochain bucket non vide dans bottom, en créant les rungs
+     * nécessaires.
+     * 
+     * @return false si la file est vide
+     */
+    private boolean refillBottom() {
+        while (true) {
+            if (this.rungs.isEmpty()) {
+                if (this.top.isEmpty()) {
+                    this.topStart = Long.MIN_VALUE;
+                    return false;
+                }
+                spawnRungFromTop();
+            }
+
+            final Rung rung = this.rungs.get(this.rungs.size() - 1);
+            while (rung.current < rung.buckets.length
+                    && (rung.buckets[rung.current] == null || rung.buckets[rung.current].isEmpty())) {
+                rung.current++;
+            }
+            if (rung.current == rung.buckets.length) {
+                this.rungs.remove(this.rungs.size() - 1);
+                continue;
+            }
+
+            final ArrayList<Event> bucket = rung.buckets[rung.current];
+            final long bucketStart = rung.currentStart();
+            rung.buckets[rung.current] = null;
+            rung.current++;
+
+            if (bucket.size() > THRESHOLD && rung.width > 1) {
+                // bucket trop rempli: on le découpe dans un rung plus fin
+                final long width = (rung.width + bucket.size() - 1) / bucket.size();
+                final int nbBuckets = (int) ((rung.width + width - 1) / width);
+                final Rung child = new Rung(bucketStart, width, nbBuckets);
+                bucket.forEach(child::add);
+                this.rungs.add(child);
+                continue;
+            }
+            bucket.forEach(this.bottom::add);
+            return true;
+        }
+    }
+
+    /**
+     * Répartit les events de top dans un premier rung couvrant [topMin, topMax].
+     */
+    private void spawnRungFromTop() {
+        final int count = this.top.size();
+        final long width = (this.topMax - this.topMin) / count + 1;
+        final Rung rung = new Rung(this.topMin, width, count);
+        this.top.forEach(rung::add);
+        this.rungs.add(rung);
+
+        this.topStart = rung.end();
+        this.top.clear();
+        this.topMin = Long.MAX_VALUE;
+        this.topMax = Long.MIN_VALUE;
+    }
+}
@@ -170,13 +170,13 @@ public class GraphicsComponent {
      * @see ImagesBuffer#getImg(String)
      */
     private void setTiles() {
-        final int nbLignes = donneesSimulation.getCarte().getNbLignes();
+        final int nbColonnes = donneesSimulation.getCarte().getNbColonnes();
         final Map<Integer, NatureTerrain> map = donneesSimulation.getCarte().getMap();
 
         for (final Map.Entry<Integer, NatureTerrain> tile : map.entrySet()) {
             final int position = tile.getKey();
-            final int x = position % nbLignes;
-            final int y = position / nbLignes;
+            final int x = position % nbColonnes;
+            final int y = position / nbColonnes;
 
             // LOGGER.debug("Affichage de la case ({}, {}) de type {}", x, y,
             // tile.getValue());
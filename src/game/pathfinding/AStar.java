@@ -3,19 +3,34 @@ package game.pathfinding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.PriorityQueue;
-import java.util.stream.IntStream;
+import java.util.function.Function;
 
 import game.Carte;
 import game.DonneesSimulation;
 import game.robots.Robot;
 
 /**
+ * A* sans allocation: les gScore et les prédécesseurs sont stockés dans des
+ * tableaux indexés par position, réutilisés d'une recherche à l'autre.
+ * L'ensemble des positions à explorer est un tas indexé qui ne contient
+ * chaque position qu'une fois. Les temps de déplacement sont lus dans la
+ * grille de coûts du robot. Par défaut, la recherche est guidée par
+ * l'heuristique ALT de la grille.
+ * 
+ * Quand un chemin rapide à calculer vaut mieux qu'un chemin optimal, A*
+ * pondéré et ARA* (Anytime Repairing A*) renvoient un chemin dont le coût est
+ * borné par un facteur epsilon du coût optimal.
+ * 
  * @see Pathfinding
  * @see Heuristique
+ * @see Landmarks
+ * @see BoundedPath
+ * @see SearchBuffers
+ * @see IndexedMinHeap
+ * @see CostGrid
  * @see DonneesSimulation
  * @author Adrien Argento
  * @author Nicolas Vincent
@@ -23,62 +38,90 @@ import game.robots.Robot;
 public class AStar extends Pathfinding implements Heuristique {
     private static final Logger LOGGER = LoggerFactory.getLogger(AStar.class);
 
-    private final DonneesSimulation donneesSimulation;
-
     /**
-     * Un noeud lie une position à un fScore.
-     * On peut comparer deux noeuds par leurs fScore.
+     * Sens de la recherche
      */
-    static class Node implements Comparable<Node> {
-        private int position;
-        
+    public static enum Mode {
+        /**
+         * Depuis src seulement
+         */
+        UNIDIRECTIONAL,
         /**
-         * fScore = gScore + heuristic
-         * gScore = the path cost of a node
-         * heuristic = the heuristic used to estimate distance between a node and the goal
-         */ 
-        private int fScore;
+         * Depuis src et depuis dest jusqu'à la rencontre des deux recherches
+         */
+        BIDIRECTIONAL
+    }
 
-        public Node(final int position, final int fScore) {
-            this.position = position;
-            this.fScore = fScore;
-        }
+    /**
+     * Pas de limite de temps pour anytimeShortestWay: une seule recherche
+     * pondérée
+     */
+    public static final long NO_TIME_BUDGET = 0;
 
-        @Override
-        public int compareTo(final Node other) {
-            if (this.fScore > other.fScore)
-                return 1;
-            if (this.fScore < other.fScore)
-                return -1;
-            return 0;
-        }
+    /**
+     * Plus grand temps de calcul en millisecondes convertible en nanosecondes,
+     * les budgets plus grands sont ramenés à cette valeur
+     */
+    private static final long MAX_TIME_BUDGET = Long.MAX_VALUE / 1_000_000L;
 
-        public int getPosition() {
-            return position;
-        }
+    /**
+     * En dessous de 1 + MIN_EPSILON_STEP, ARA* passe directement à epsilon = 1
+     */
+    private static final double MIN_EPSILON_STEP = 0.01;
 
-        public void setPosition(final int position) {
-            this.position = position;
-        }
+    /**
+     * L'horloge n'est lue que toutes les DEADLINE_CHECK_PERIOD positions
+     * explorées
+     */
+    private static final int DEADLINE_CHECK_PERIOD = 256;
 
-        public int getfScore() {
-            return fScore;
-        }
+    private final DonneesSimulation donneesSimulation;
 
-        public void setfScore(final int fScore) {
-            this.fScore = fScore;
-        }
-    }
+    /**
+     * Mode utilisé par shortestWay(Robot, int, int)
+     */
+    private Mode mode = Mode.UNIDIRECTIONAL;
 
     /**
+     * Facteur de sous-optimalité accepté par shortestWay(Robot, int, int), 1
+     * pour un chemin optimal
+     */
+    private double epsilon = 1.0;
+
+    /**
+     * Temps de calcul accordé par shortestWay(Robot, int, int) à ARA*, en
+     * millisecondes
+     */
+    private long timeBudget = NO_TIME_BUDGET;
+
+    /**
+     * Fournit l'heuristique, exprimée en temps de parcours, d'une grille de coûts
+     */
+    private final Function<CostGrid, Heuristique> heuristiqueFactory;
+
+    /**
+     * A* guidé par l'heuristique ALT
+     * 
      * @param donneesSimulation
+     * @see Landmarks#get(CostGrid)
      */
     public AStar(final DonneesSimulation donneesSimulation) {
+        this(donneesSimulation, Landmarks::get);
+    }
+
+    /**
+     * @param donneesSimulation
+     * @param heuristiqueFactory heuristique admissible pour une grille de coûts
+     */
+    public AStar(final DonneesSimulation donneesSimulation,
+            final Function<CostGrid, Heuristique> heuristiqueFactory) {
         this.donneesSimulation = donneesSimulation;
+        this.heuristiqueFactory = heuristiqueFactory;
     }
 
     /**
-     * Implémentation de notre heuristique. On choisit la distance de Manhattan
+     * Distance de Manhattan en nombre de cases, indépendante du robot. Pour
+     * guider la recherche, elle doit être multipliée par un coût minimal.
      * 
      * @param src
      * @param dest
@@ -88,13 +131,37 @@ public class AStar extends Pathfinding implements Heuristique {
     @Override
     public int heuristique(final int src, final int dest) {
         final Carte carte = this.donneesSimulation.getCarte();
-        final int yB = dest / carte.getNbLignes();
-        final int xB = dest % carte.getNbLignes();
-        final int yA = src / carte.getNbLignes();
-        final int xA = src % carte.getNbLignes();
+        final int yB = dest / carte.getNbColonnes();
+        final int xB = dest % carte.getNbColonnes();
+        final int yA = src / carte.getNbColonnes();
+        final int xA = src % carte.getNbColonnes();
         return Math.abs(xB - xA) + Math.abs(yB - yA);
     }
 
+    /**
+     * Calcule le plus court chemin pour le robot entre src et dest avec
+     * l'algorithme A*, dans le mode par défaut. Si un facteur de sous-optimalité
+     * a été accepté, le chemin est celui de anytimeShortestWay.
+     * 
+     * @param robot
+     * @param src
+     * @param dest
+     * @return suite de positions
+     * @throws IllegalStateException if there is no path
+     * @see #shortestWay(Robot, int, int, Mode)
+     * @see #anytimeShortestWay(Robot, int, int, double, long)
+     * @see #setMode(Mode)
+     * @see #setSuboptimality(double, long)
+     */
+    @Override
+    public Path shortestWay(final Robot robot, final int src, final int dest)
+            throws IllegalStateException {
+        if (this.epsilon > 1.0) {
+            return anytimeShortestWay(robot, src, dest, this.epsilon, this.timeBudget).getPath();
+        }
+        return shortestWay(robot, src, dest, this.mode);
+    }
+
     /**
      * Calcule le plus court chemin pour le robot entre src et dest avec
      * l'algorithme A*
@@ -102,58 +169,72 @@ public class AStar extends Pathfinding implements Heuristique {
      * @param robot
      * @param src
      * @param dest
+     * @param mode  recherche depuis src seulement, ou depuis src et dest
      * @return suite de positions
      * @throws IllegalStateException if there is no path
-     * @see Node#Node(int, int)
      * @see DonneesSimulation#getCarte()
-     * @see #heuristique(int, int)
-     * @see #reconstructPath(HashMap, int)
-     * @see #getTentativeGScore(HashMap, Robot, int, int)
+     * @see CostGrid#get(Carte, Robot)
+     * @see #unidirectionalSearch(CostGrid, Heuristique, int, int)
+     * @see #bidirectionalSearch(CostGrid, Heuristique, int, int)
      */
-    @Override
-    public LinkedList<Integer> shortestWay(final Robot robot, final int src, final int dest)
+    public Path shortestWay(final Robot robot, final int src, final int dest, final Mode mode)
             throws IllegalStateException {
         LOGGER.info("Recherche du plus court chemin");
-        /* File de paires (position, fScore) */
-        final PriorityQueue<Node> openSet = new PriorityQueue<Node>();
+        resetExpandedNodes();
+        checkReachable(robot, src, dest);
+        final CostGrid costGrid = CostGrid.get(this.donneesSimulation.getCarte(), robot);
+        final Heuristique heuristique = this.heuristiqueFactory.apply(costGrid);
+        if (mode == Mode.BIDIRECTIONAL) {
+            return bidirectionalSearch(costGrid, heuristique, src, dest);
+        }
+        return unidirectionalSearch(costGrid, heuristique, src, dest);
+    }
 
-        /* Initialisation des gScore à Integer.MAX_VALUE */
-        final HashMap<Integer, Integer> gScore = IntStream
-                .range(0,
-                        this.donneesSimulation.getCarte().getNbLignes()
-                                * this.donneesSimulation.getCarte().getNbColonnes())
-                .collect(HashMap::new, (m, position) -> m.put(position, Integer.MAX_VALUE), Map::putAll);
+    /**
+     * @param costGrid
+     * @param heuristique
+     * @param src
+     * @param dest
+     * @return suite de positions
+     * @throws IllegalStateException if there is no path
+     * @see SearchBuffers#get(int)
+     * @see #reconstructPath(CostGrid, SearchBuffers, int)
+     */
+    private Path unidirectionalSearch(final CostGrid costGrid, final Heuristique heuristique,
+            final int src, final int dest) throws IllegalStateException {
+        final SearchBuffers buffers = SearchBuffers.get(costGrid.getNbCells());
 
-        /* Chemin entre src et dst (neighbor, position) */
-        final HashMap<Integer, Integer> cameFrom = new HashMap<Integer, Integer>();
+        /* File des positions à explorer, ordonnée par fScore */
+        final IndexedMinHeap openSet = buffers.getOpenSet();
 
         /* On start avec la position du robot */
-        openSet.add(new Node(src, heuristique(src, dest)));
-        gScore.replace(src, 0);
+        buffers.set(src, 0, -1);
+        openSet.push(src, heuristique.heuristique(src, dest));
+        final int[] expandedNodes = resetExpandedNodes();
 
         while (!openSet.isEmpty()) {
-            final int position = openSet.poll().getPosition();
+            final int position = openSet.pop();
+            expandedNodes[0]++;
+            final long gScore = buffers.getGScore(position);
             /* Si on a atteint la destination, on reconstruit le chemin */
             if (position == dest) {
-                return reconstructPath(cameFrom, position);
+                return reconstructPath(costGrid, buffers, position).build();
             }
 
             /* On explore les voisins */
-            for (final Integer neighbor : this.donneesSimulation.getCarte().getNeighbors(position)) {
-                // tentativeGScore is the distance from start to the neighbor through position
-                final int tentativeGScore = getTentativeGScore(gScore, robot, position, neighbor);
-                if (tentativeGScore == Integer.MAX_VALUE)
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                final int cost = costGrid.getCost(position, direction);
+                if (cost == CostGrid.IMPASSABLE)
                     continue;
+                final int neighbor = costGrid.getVoisin(position, direction);
 
-                if (tentativeGScore < gScore.get(neighbor)) {
+                // tentativeGScore is the distance from start to the neighbor through position
+                final long tentativeGScore = gScore + cost;
+                if (tentativeGScore < buffers.getGScore(neighbor)) {
                     // This path to neighbor is better than any previous one. Record it!
-                    cameFrom.put(neighbor, position);
-                    gScore.replace(neighbor, tentativeGScore);
-                    final Node neighborWithCost = new Node(neighbor,
-                            gScore.get(neighbor) + heuristique(neighbor, dest));
-                    if (!openSet.contains(neighborWithCost)) {
-                        openSet.add(neighborWithCost);
-                    }
+                    buffers.set(neighbor, tentativeGScore, position);
+                    // ajoût ou diminution de la clé si le voisin est déjà dans openSet
+                    openSet.push(neighbor, tentativeGScore + heuristique.heuristique(neighbor, dest));
                 }
             }
         }
@@ -162,37 +243,413 @@ public class AStar extends Pathfinding implements Heuristique {
     }
 
     /**
-     * @param gScore
+     * A* bidirectionnel: une recherche avant depuis src et une recherche arrière
+     * depuis dest, sur les arcs inversés. Les deux recherches utilisent les
+     * potentiels moyens pf(v) = (h(v, dest) - h(src, v)) / 2 et pr(v) = -pf(v),
+     * ce qui les rend cohérentes entre elles. Les clés sont multipliées par 2
+     * pour rester entières. On s'arrête dès que la somme des clés minimales des
+     * deux files dépasse 2 * mu, où mu est le coût du meilleur chemin trouvé à la
+     * rencontre des deux recherches: ce chemin est alors optimal.
+     * 
+     * @param costGrid
+     * @param heuristique
+     * @param src
+     * @param dest
+     * @return suite de positions
+     * @throws IllegalStateException if there is no path
+     * @see SearchBuffers#get(int)
+     * @see SearchBuffers#getReverse(int)
+     */
+    private Path bidirectionalSearch(final CostGrid costGrid, final Heuristique heuristique,
+            final int src, final int dest) throws IllegalStateException {
+        final SearchBuffers forward = SearchBuffers.get(costGrid.getNbCells());
+        final SearchBuffers reverse = SearchBuffers.getReverse(costGrid.getNbCells());
+        final IndexedMinHeap forwardSet = forward.getOpenSet();
+        final IndexedMinHeap reverseSet = reverse.getOpenSet();
+
+        forward.set(src, 0, -1);
+        forwardSet.push(src, getPotential(heuristique, src, dest, src));
+        reverse.set(dest, 0, -1);
+        reverseSet.push(dest, -getPotential(heuristique, src, dest, dest));
+        final int[] expandedNodes = resetExpandedNodes();
+
+        long mu = (src == dest) ? 0 : Long.MAX_VALUE;
+        int meeting = (src == dest) ? src : -1;
+
+        while (!forwardSet.isEmpty() && !reverseSet.isEmpty()) {
+            if (mu != Long.MAX_VALUE && forwardSet.peekKey() + reverseSet.peekKey() >= 2 * mu)
+                break;
+            expandedNodes[0]++;
+            final boolean isForward = forwardSet.peekKey() <= reverseSet.peekKey();
+            final SearchBuffers buffers = isForward ? forward : reverse;
+            final SearchBuffers other = isForward ? reverse : forward;
+            final int position = (isForward ? forwardSet : reverseSet).pop();
+            final long gScore = buffers.getGScore(position);
+
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                if (costGrid.getCost(position, direction) == CostGrid.IMPASSABLE)
+                    continue;
+                final int neighbor = costGrid.getVoisin(position, direction);
+                // la recherche arrière suit l'arc neighbor -> position
+                final int cost = isForward ? costGrid.getCost(position, direction)
+                        : costGrid.getCost(neighbor, CostGrid.getOpposite(direction));
+                if (cost == CostGrid.IMPASSABLE)
+                    continue;
+
+                final long tentativeGScore = gScore + cost;
+                if (tentativeGScore < buffers.getGScore(neighbor)) {
+                    buffers.set(neighbor, tentativeGScore, position);
+                    final long potential = getPotential(heuristique, src, dest, neighbor);
+                    if (isForward) {
+                        forwardSet.push(neighbor, 2 * tentativeGScore + potential);
+                    } else {
+                        reverseSet.push(neighbor, 2 * tentativeGScore - potential);
+                    }
+                    final long otherGScore = other.getGScore(neighbor);
+                    if (otherGScore != Long.MAX_VALUE && tentativeGScore + otherGScore < mu) {
+                        mu = tentativeGScore + otherGScore;
+                        meeting = neighbor;
+                    }
+                }
+            }
+        }
+        if (meeting < 0) {
+            throw new IllegalStateException("No route found");
+        }
+
+        /* Chemin de src à la rencontre, puis de la rencontre à dest */
+        final Path.Builder path = reconstructPath(costGrid, forward, meeting);
+        int position = meeting;
+        while ((position = reverse.getCameFrom(position)) >= 0) {
+            path.add(position);
+        }
+        return path.build();
+    }
+
+    /**
+     * A* pondéré: la recherche est guidée par g + epsilon * h et renvoie un
+     * chemin dont le coût est au plus epsilon fois le coût optimal.
+     * 
+     * @param robot
+     * @param src
+     * @param dest
+     * @param epsilon facteur de sous-optimalité accepté, au moins 1
+     * @return chemin et facteur de sous-optimalité prouvé
+     * @throws IllegalStateException if there is no path
+     * @see #anytimeShortestWay(Robot, int, int, double, long)
+     */
+    public BoundedPath weightedShortestWay(final Robot robot, final int src, final int dest, final double epsilon)
+            throws IllegalStateException {
+        return anytimeShortestWay(robot, src, dest, epsilon, NO_TIME_BUDGET);
+    }
+
+    /**
+     * ARA*: une première recherche pondérée par epsilon, toujours menée à son
+     * terme, puis des recherches de moins en moins pondérées tant qu'il reste du
+     * temps. Chaque recherche réutilise les gScore de la précédente et ne
+     * réexplore que les positions dont le gScore a diminué. On renvoie le
+     * meilleur chemin trouvé et le facteur prouvé par la dernière recherche
+     * terminée: coût / min(g + h) sur les positions restant à explorer.
+     * 
      * @param robot
+     * @param src
+     * @param dest
+     * @param epsilon    facteur de sous-optimalité de la première recherche, au
+     *                   moins 1
+     * @param timeBudget temps de calcul accordé en millisecondes, NO_TIME_BUDGET
+     *                   pour ne faire que la première recherche, Long.MAX_VALUE
+     *                   pour chercher jusqu'au chemin optimal
+     * @return chemin et facteur de sous-optimalité prouvé
+     * @throws IllegalStateException    if there is no path
+     * @throws IllegalArgumentException if epsilon is lower than 1
+     * @see #improvePath(CostGrid, Heuristique, SearchBuffers, BitSet, BitSet, int, double, long)
+     */
+    public BoundedPath anytimeShortestWay(final Robot robot, final int src, final int dest, final double epsilon,
+            final long timeBudget) throws IllegalStateException, IllegalArgumentException {
+        if (!(epsilon >= 1.0)) {
+            throw new IllegalArgumentException("Le facteur de sous-optimalité doit valoir au moins 1: " + epsilon);
+        }
+        LOGGER.info("Recherche d'un chemin à un facteur {} de l'optimal", epsilon);
+        resetExpandedNodes();
+        checkReachable(robot, src, dest);
+        final long start = System.nanoTime();
+        final CostGrid costGrid = CostGrid.get(this.donneesSimulation.getCarte(), robot);
+        final Heuristique heuristique = this.heuristiqueFactory.apply(costGrid);
+        final SearchBuffers buffers = SearchBuffers.get(costGrid.getNbCells());
+        final IndexedMinHeap openSet = buffers.getOpenSet();
+
+        /* Positions explorées lors de la recherche courante */
+        final BitSet closed = new BitSet(costGrid.getNbCells());
+        /* Positions explorées dont le gScore a diminué depuis */
+        final BitSet incons = new BitSet(costGrid.getNbCells());
+
+        double currentEpsilon = epsilon;
+        buffers.set(src, 0, -1);
+        openSet.push(src, getWeightedKey(heuristique, 0, src, dest, currentEpsilon));
+        improvePath(costGrid, heuristique, buffers, closed, incons, dest, currentEpsilon, -1);
+        if (buffers.getGScore(dest) == Long.MAX_VALUE) {
+            throw new IllegalStateException("No route found");
+        }
+        BoundedPath best = new BoundedPath(reconstructPath(costGrid, buffers, dest).build(),
+                getBound(heuristique, buffers, incons, dest, currentEpsilon));
+
+        // borné pour que la conversion en nanosecondes ne déborde pas
+        final long deadline = start + Math.min(timeBudget, MAX_TIME_BUDGET) * 1_000_000L;
+        while (timeBudget > NO_TIME_BUDGET && !best.isOptimal() && System.nanoTime() - deadline < 0) {
+            currentEpsilon = 1.0 + (Math.min(currentEpsilon, best.getBound()) - 1.0) / 2;
+            if (currentEpsilon < 1.0 + MIN_EPSILON_STEP) {
+                currentEpsilon = 1.0;
+            }
+            /* Les positions à réexplorer reprennent leur place avec les nouvelles clés */
+            for (final int position : openSet.toArray()) {
+                openSet.push(position,
+                        getWeightedKey(heuristique, buffers.getGScore(position), position, dest, currentEpsilon));
+            }
+            for (int position = incons.nextSetBit(0); position >= 0; position = incons.nextSetBit(position + 1)) {
+                openSet.push(position,
+                        getWeightedKey(heuristique, buffers.getGScore(position), position, dest, currentEpsilon));
+            }
+            incons.clear();
+            closed.clear();
+            if (!improvePath(costGrid, heuristique, buffers, closed, incons, dest, currentEpsilon, deadline)) {
+                break;
+            }
+            best = new BoundedPath(reconstructPath(costGrid, buffers, dest).build(),
+                    getBound(heuristique, buffers, incons, dest, currentEpsilon));
+        }
+        LOGGER.info("Chemin trouvé à un facteur {} de l'optimal", best.getBound());
+        return best;
+    }
+
+    /**
+     * Explore les positions par clé g + epsilon * h croissante jusqu'à ce que la
+     * clé de dest soit minimale. Une position déjà explorée dont le gScore
+     * diminue est mise de côté dans incons.
+     * 
+     * @param costGrid
+     * @param heuristique
+     * @param buffers
+     * @param closed      positions explorées lors de cette recherche
+     * @param incons      positions explorées dont le gScore a diminué
+     * @param dest
+     * @param epsilon
+     * @param deadline    date limite selon System.nanoTime(), -1 pour ne pas
+     *                    interrompre la recherche
+     * @return false si la recherche a été interrompue
+     */
+    private boolean improvePath(final CostGrid costGrid, final Heuristique heuristique,
+            final SearchBuffers buffers, final BitSet closed, final BitSet incons, final int dest,
+            final double epsilon, final long deadline) {
+        final IndexedMinHeap openSet = buffers.getOpenSet();
+        final int[] expandedNodes = getExpandedNodesCounter();
+        int count = 0;
+        while (!openSet.isEmpty() && buffers.getGScore(dest) > openSet.peekKey()) {
+            if (deadline != -1 && ++count % DEADLINE_CHECK_PERIOD == 0 && System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            final int position = openSet.pop();
+            expandedNodes[0]++;
+            closed.set(position);
+            final long gScore = buffers.getGScore(position);
+
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                final int cost = costGrid.getCost(position, direction);
+                if (cost == CostGrid.IMPASSABLE)
+                    continue;
+                final int neighbor = costGrid.getVoisin(position, direction);
+                final long tentativeGScore = gScore + cost;
+                if (tentativeGScore < buffers.getGScore(neighbor)) {
+                    buffers.set(neighbor, tentativeGScore, position);
+                    if (closed.get(neighbor)) {
+                        incons.set(neighbor);
+                    } else {
+                        openSet.push(neighbor, getWeightedKey(heuristique, tentativeGScore, neighbor, dest, epsilon));
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param heuristique
+     * @param gScore
+     * @param position
+     * @param dest
+     * @param epsilon
+     * @return g + epsilon * h, arrondi par défaut
+     */
+    private static long getWeightedKey(final Heuristique heuristique, final long gScore, final int position,
+            final int dest, final double epsilon) {
+        return gScore + (long) (epsilon * heuristique.heuristique(position, dest));
+    }
+
+    /**
+     * Tout chemin optimal passe par une position restant à explorer, son coût est
+     * donc au moins min(g + h) sur ces positions.
+     * 
+     * @param heuristique
+     * @param buffers
+     * @param incons
+     * @param dest
+     * @param epsilon     facteur de la recherche qui vient de se terminer
+     * @return facteur de sous-optimalité prouvé du chemin vers dest
+     */
+    private static double getBound(final Heuristique heuristique, final SearchBuffers buffers,
+            final BitSet incons, final int dest, final double epsilon) {
+        long lowerBound = Long.MAX_VALUE;
+        for (final int position : buffers.getOpenSet().toArray()) {
+            lowerBound = Math.min(lowerBound, buffers.getGScore(position) + heuristique.heuristique(position, dest));
+        }
+        for (int position = incons.nextSetBit(0); position >= 0; position = incons.nextSetBit(position + 1)) {
+            lowerBound = Math.min(lowerBound, buffers.getGScore(position) + heuristique.heuristique(position, dest));
+        }
+        final long cost = buffers.getGScore(dest);
+        if (cost <= lowerBound) {
+            return 1.0;
+        }
+        return Math.max(1.0, Math.min(epsilon, (double) cost / lowerBound));
+    }
+
+    /**
+     * @param heuristique
+     * @param src
+     * @param dest
      * @param position
-     * @param neighbor
-     * @return the distance from start to the neighbor through position
-     * @see DonneesSimulation#getTimeToMove(Robot, int, int)
+     * @return 2 * pf(position) = h(position, dest) - h(src, position)
+     */
+    private static long getPotential(final Heuristique heuristique, final int src, final int dest,
+            final int position) {
+        return (long) heuristique.heuristique(position, dest) - heuristique.heuristique(src, position);
+    }
+
+    /**
+     * Algorithme de Dijkstra depuis src, arrêté dès que toutes les cibles ont
+     * été atteintes. Une seule exploration donne la cible la plus proche et le
+     * coût de chaque cible.
+     * 
+     * @param robot
+     * @param src
+     * @param targets positions cibles
+     * @return la cible la plus proche, son chemin et le coût de chaque cible
+     * @throws IllegalStateException if there is no path to any target
+     * @see SearchBuffers#get(int)
+     * @see CostGrid#get(Carte, Robot)
      */
-    private Integer getTentativeGScore(final HashMap<Integer, Integer> gScore, final Robot robot, final int position,
-            final int neighbor) {
-        try {
-            return gScore.get(position) + (int) donneesSimulation.getTimeToMove(robot, position, neighbor);
-        } catch (final IllegalArgumentException e) {
-            LOGGER.warn(e.getMessage());
-            return Integer.MAX_VALUE;
+    @Override
+    public MultiTargetResult nearestTarget(final Robot robot, final int src, final Collection<Integer> targets)
+            throws IllegalStateException {
+        LOGGER.info("Recherche de la cible la plus proche parmi {} cibles", targets.size());
+        final int[] expandedNodes = resetExpandedNodes();
+        final CostGrid costGrid = CostGrid.get(this.donneesSimulation.getCarte(), robot);
+        final SearchBuffers buffers = SearchBuffers.get(costGrid.getNbCells());
+        final IndexedMinHeap openSet = buffers.getOpenSet();
+
+        // les cibles d'une autre composante ne seraient jamais atteintes et
+        // forceraient l'exploration de toute la composante de src
+        final ReachabilityComponents components = ReachabilityComponents.get(this.donneesSimulation.getCarte(), robot);
+        final BitSet remaining = new BitSet(costGrid.getNbCells());
+        for (final int target : targets) {
+            if (components.isConnected(src, target)) {
+                remaining.set(target);
+            }
+        }
+        if (remaining.isEmpty()) {
+            throw new IllegalStateException("No route found");
         }
+        final HashMap<Integer, Long> costs = new HashMap<Integer, Long>();
+        int nearest = -1;
+
+        buffers.set(src, 0, -1);
+        openSet.push(src, 0);
+
+        while (!openSet.isEmpty() && !remaining.isEmpty()) {
+            final int position = openSet.pop();
+            expandedNodes[0]++;
+            final long gScore = buffers.getGScore(position);
+            if (remaining.get(position)) {
+                remaining.clear(position);
+                costs.put(position, gScore);
+                if (nearest < 0) {
+                    nearest = position;
+                }
+            }
+
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                final int cost = costGrid.getCost(position, direction);
+                if (cost == CostGrid.IMPASSABLE)
+                    continue;
+                final int neighbor = costGrid.getVoisin(position, direction);
+                final long tentativeGScore = gScore + cost;
+                if (tentativeGScore < buffers.getGScore(neighbor)) {
+                    buffers.set(neighbor, tentativeGScore, position);
+                    openSet.push(neighbor, tentativeGScore);
+                }
+            }
+        }
+        if (nearest < 0) {
+            throw new IllegalStateException("No route found");
+        }
+        return new MultiTargetResult(nearest, reconstructPath(costGrid, buffers, nearest).build(), costs);
+    }
+
+    @Override
+    protected Carte getCarte() {
+        return this.donneesSimulation.getCarte();
+    }
+
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * @param mode mode utilisé par shortestWay(Robot, int, int)
+     */
+    public void setMode(final Mode mode) {
+        this.mode = mode;
+    }
+
+    public double getEpsilon() {
+        return this.epsilon;
+    }
+
+    public long getTimeBudget() {
+        return this.timeBudget;
+    }
+
+    /**
+     * Accepte des chemins sous-optimaux dans shortestWay(Robot, int, int), par
+     * exemple pour tenir un budget de temps de calcul par pas de simulation
+     * 
+     * @param epsilon    facteur de sous-optimalité accepté, 1 pour des chemins
+     *                   optimaux
+     * @param timeBudget temps accordé à ARA* pour améliorer le chemin, en
+     *                   millisecondes, NO_TIME_BUDGET pour A* pondéré seul
+     * @throws IllegalArgumentException if epsilon is lower than 1
+     * @see #anytimeShortestWay(Robot, int, int, double, long)
+     */
+    public void setSuboptimality(final double epsilon, final long timeBudget) throws IllegalArgumentException {
+        if (!(epsilon >= 1.0)) {
+            throw new IllegalArgumentException("Le facteur de sous-optimalité doit valoir au moins 1: " + epsilon);
+        }
+        this.epsilon = epsilon;
+        this.timeBudget = timeBudget;
     }
 
     /**
      * Reconstruit le plus court chemin.
      * 
-     * @param map  (neighbor, position)
+     * @param costGrid
+     * @param buffers prédécesseurs des positions
      * @param dest
-     * @return suite de positions
+     * @return positions du chemin, de src à dest
      */
-    private LinkedList<Integer> reconstructPath(final HashMap<Integer, Integer> map, int dest) {
-        final LinkedList<Integer> path = new LinkedList<Integer>();
+    private static Path.Builder reconstructPath(final CostGrid costGrid, final SearchBuffers buffers, int dest) {
+        final Path.Builder path = new Path.Builder(costGrid);
         path.add(dest);
-        while (map.containsKey(dest)) {
-            dest = map.get(dest);
-            path.addFirst(dest);
+        while ((dest = buffers.getCameFrom(dest)) >= 0) {
+            path.add(dest);
         }
-        return path;
+        return path.reverse();
     }
-}
\ No newline at end of file
+}
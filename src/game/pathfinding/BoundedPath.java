@@ -0,0 +1,45 @@
+package game.pathfinding;
+
+/**
+ * Résultat d'une recherche sous-optimale: un chemin et le facteur par lequel
+ * son coût est prouvé borné, coût <= bound * coût optimal.
+ *
+ * @author Nicolas Vincent
+ * @see AStar#anytimeShortestWay(game.robots.Robot, int, int, double, long)
+ */
+public class BoundedPath {
+    private final Path path;
+    private final double bound;
+
+    /**
+     * @param path
+     * @param bound facteur de sous-optimalité prouvé, au moins 1
+     */
+    public BoundedPath(final Path path, final double bound) {
+        this.path = path;
+        this.bound = bound;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return facteur de sous-optimalité prouvé, 1 si le chemin est optimal
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    /**
+     * @return true si le chemin est prouvé optimal
+     */
+    public boolean isOptimal() {
+        return bound <= 1.0;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedPath [duration=" + path.getDuration() + ", bound=" + bound + "]";
+    }
+}
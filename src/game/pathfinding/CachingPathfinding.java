@@ -0,0 +1,212 @@
+package game.pathfinding;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.Carte;
+import game.robots.Robot;
+import game.robots.RobotType;
+
+/**
+ * Décorateur mémorisant les plus courts chemins calculés par un autre
+ * Pathfinding. Les chemins sont indexés par (type de robot, vitesse, src, dest)
+ * et sont immuables, ils sont donc partagés sans copie. Le cache est borné: le chemin utilisé le
+ * moins récemment est oublié en premier.
+ *
+ * Un chemin n'est réutilisé que s'il a été calculé avec la grille de coûts
+ * courante du robot: une modification du terrain ou des vitesses par terrain
+ * invalide les chemins concernés.
+ *
+ * @author Nicolas Vincent
+ * @see CostGrid#get(Carte, Robot)
+ */
+public class CachingPathfinding extends Pathfinding {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingPathfinding.class);
+
+    /**
+     * Nombre de chemins mémorisés par défaut
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Clé d'un chemin
+     */
+    private static class PathKey {
+        private final RobotType robotType;
+        private final double vitesse;
+        private final int src;
+        private final int dest;
+
+        PathKey(final Robot robot, final int src, final int dest) {
+            this.robotType = robot.getRobotType();
+            this.vitesse = robot.getVitesse();
+            this.src = src;
+            this.dest = dest;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof PathKey))
+                return false;
+            final PathKey other = (PathKey) obj;
+            return this.robotType == other.robotType && this.vitesse == other.vitesse && this.src == other.src
+                    && this.dest == other.dest;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.robotType, this.vitesse, this.src, this.dest);
+        }
+    }
+
+    /**
+     * Chemin mémorisé et grille de coûts avec laquelle il a été calculé. Un chemin
+     * null signifie qu'il n'existe pas de chemin.
+     */
+    private static class CachedPath {
+        private final Path path;
+        private final CostGrid costGrid;
+
+        CachedPath(final Path path, final CostGrid costGrid) {
+            this.path = path;
+            this.costGrid = costGrid;
+        }
+    }
+
+    private final Pathfinding pathfinding;
+
+    private final LinkedHashMap<PathKey, CachedPath> cache;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param pathfinding algorithme dont les résultats sont mémorisés
+     * @see #CachingPathfinding(Pathfinding, int)
+     */
+    public CachingPathfinding(final Pathfinding pathfinding) {
+        this(pathfinding, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param pathfinding algorithme dont les résultats sont mémorisés
+     * @param capacity    nombre maximal de chemins mémorisés
+     */
+    public CachingPathfinding(final Pathfinding pathfinding, final int capacity) {
+        this.pathfinding = pathfinding;
+        // ordre d'accès: le premier élément est le moins récemment utilisé
+        this.cache = new LinkedHashMap<PathKey, CachedPath>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<PathKey, CachedPath> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param robot
+     * @param src
+     * @param dest
+     * @return suite de positions, partagée avec le cache
+     * @throws IllegalStateException if there is no path
+     * @see Pathfinding#shortestWay(Robot, int, int)
+     */
+    @Override
+    public Path shortestWay(final Robot robot, final int src, final int dest)
+            throws IllegalStateException {
+        final CostGrid costGrid = CostGrid.get(getCarte(), robot);
+        final PathKey key = new PathKey(robot, src, dest);
+
+        CachedPath cachedPath;
+        synchronized (this) {
+            cachedPath = this.cache.get(key);
+            if (cachedPath != null && cachedPath.costGrid != costGrid) {
+                // calculé sur une carte ou avec des vitesses qui ont changé
+                this.cache.remove(key);
+                cachedPath = null;
+            }
+            if (cachedPath != null) {
+                LOGGER.info("Chemin de {} à {} trouvé dans le cache", src, dest);
+                this.hits++;
+            } else {
+                this.misses++;
+            }
+        }
+
+        if (cachedPath == null) {
+            Path path;
+            try {
+                path = this.pathfinding.shortestWay(robot, src, dest);
+            } catch (final IllegalStateException e) {
+                path = null;
+            }
+            cachedPath = new CachedPath(path, costGrid);
+            synchronized (this) {
+                this.cache.put(key, cachedPath);
+            }
+        }
+
+        if (cachedPath.path == null) {
+            throw new IllegalStateException("No route found");
+        }
+        return cachedPath.path;
+    }
+
+    /**
+     * Non mémorisé, délégué à l'algorithme décoré
+     *
+     * @see Pathfinding#nearestTarget(Robot, int, Collection)
+     */
+    @Override
+    public MultiTargetResult nearestTarget(final Robot robot, final int src, final Collection<Integer> targets)
+            throws IllegalStateException {
+        return this.pathfinding.nearestTarget(robot, src, targets);
+    }
+
+    @Override
+    protected Carte getCarte() {
+        return this.pathfinding.getCarte();
+    }
+
+    /**
+     * Oublie tous les chemins mémorisés
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+    }
+
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return proportion des requêtes servies par le cache
+     */
+    public synchronized double getHitRate() {
+        final long total = this.hits + this.misses;
+        return (total == 0) ? 0 : (double) this.hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CachingPathfinding [hits=" + this.hits + ", misses=" + this.misses + ", size=" + this.cache.size()
+                + "]";
+    }
+}
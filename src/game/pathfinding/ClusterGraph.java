@@ -0,0 +1,297 @@
+package game.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.Direction;
+
+/**
+ * Graphe abstrait de HPA*: la carte est découpée en clusters carrés. Chaque
+ * passage praticable entre deux clusters voisins donne une entrée, représentée
+ * par une position de chaque côté de la frontière. Les entrées d'un même
+ * cluster sont reliées par le coût du plus court chemin restant dans le
+ * cluster.
+ *
+ * Le graphe est construit pour une grille de coûts, c'est-à-dire pour une
+ * carte et un type de robot.
+ *
+ * @author Nicolas Vincent
+ * @see HierarchicalPathfinding
+ * @see CostGrid
+ */
+class ClusterGraph {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterGraph.class);
+
+    /**
+     * Au-delà de cette longueur, un passage donne deux entrées, une à chaque
+     * extrémité
+     */
+    private static final int MAX_SINGLE_ENTRANCE_LENGTH = 6;
+
+    private static final int EST = Direction.EST.ordinal();
+    private static final int SUD = Direction.SUD.ordinal();
+
+    private final CostGrid costGrid;
+    private final int clusterSize;
+    private final int nbLignes, nbColonnes;
+
+    /**
+     * Décalage entre deux lignes de la carte
+     */
+    private final int stride;
+
+    private final int nbClustersColonnes;
+
+    /**
+     * clusterOf[position] indice du cluster contenant la position
+     */
+    private final int[] clusterOf;
+
+    /**
+     * nodeOf[position] indice du noeud abstrait de la position, -1 si elle n'est
+     * pas une entrée
+     */
+    private final int[] nodeOf;
+
+    private final ArrayList<Integer> nodePositions = new ArrayList<Integer>();
+
+    /**
+     * clusterNodes[cluster] positions des entrées du cluster
+     */
+    private final ArrayList<ArrayList<Integer>> clusterNodes = new ArrayList<ArrayList<Integer>>();
+
+    /**
+     * Arcs sortants de chaque noeud: cible et coût
+     */
+    private final ArrayList<ArrayList<Integer>> edgeTargets = new ArrayList<ArrayList<Integer>>();
+    private final ArrayList<ArrayList<Long>> edgeCosts = new ArrayList<ArrayList<Long>>();
+
+    /**
+     * @param costGrid
+     * @param clusterSize nombre de cases d'un côté de cluster
+     */
+    ClusterGraph(final CostGrid costGrid, final int clusterSize) {
+        this.costGrid = costGrid;
+        this.clusterSize = clusterSize;
+        this.nbLignes = costGrid.getNbLignes();
+        this.nbColonnes = costGrid.getNbColonnes();
+        this.stride = costGrid.getVoisin(0, SUD);
+        this.nbClustersColonnes = (this.nbColonnes + clusterSize - 1) / clusterSize;
+        final int nbClustersLignes = (this.nbLignes + clusterSize - 1) / clusterSize;
+
+        this.clusterOf = new int[costGrid.getNbCells()];
+        this.nodeOf = new int[costGrid.getNbCells()];
+        Arrays.fill(this.nodeOf, -1);
+        for (int ligne = 0; ligne < this.nbLignes; ligne++) {
+            for (int colonne = 0; colonne < this.nbColonnes; colonne++) {
+                this.clusterOf[ligne * this.stride + colonne] = (ligne / clusterSize) * this.nbClustersColonnes
+                        + colonne / clusterSize;
+            }
+        }
+        for (int cluster = 0; cluster < nbClustersLignes * this.nbClustersColonnes; cluster++) {
+            this.clusterNodes.add(new ArrayList<Integer>());
+        }
+
+        // entrées sur les frontières verticales puis horizontales
+        for (int colonne = clusterSize - 1; colonne < this.nbColonnes - 1; colonne += clusterSize) {
+            for (int ligne = 0; ligne < this.nbLignes; ligne += clusterSize) {
+                addEntrances(ligne * this.stride + colonne, this.stride,
+                        Math.min(clusterSize, this.nbLignes - ligne), EST);
+            }
+        }
+        for (int ligne = clusterSize - 1; ligne < this.nbLignes - 1; ligne += clusterSize) {
+            for (int colonne = 0; colonne < this.nbColonnes; colonne += clusterSize) {
+                addEntrances(ligne * this.stride + colonne, 1, Math.min(clusterSize, this.nbColonnes - colonne),
+                        SUD);
+            }
+        }
+
+        // arcs entre les entrées d'un même cluster
+        for (int cluster = 0; cluster < this.clusterNodes.size(); cluster++) {
+            final ArrayList<Integer> nodes = this.clusterNodes.get(cluster);
+            for (final int position : nodes) {
+                final long[] costs = getClusterCosts(position, nodes);
+                for (int i = 0; i < nodes.size(); i++) {
+                    if (nodes.get(i) != position && costs[i] != Long.MAX_VALUE) {
+                        addEdge(this.nodeOf[position], this.nodeOf[nodes.get(i)], costs[i]);
+                    }
+                }
+            }
+        }
+        LOGGER.info("Graphe abstrait de {} noeuds pour des clusters de taille {}", this.nodePositions.size(),
+                clusterSize);
+    }
+
+    /**
+     * Découpe une frontière en passages praticables et ajoute leurs entrées
+     *
+     * @param start     première case de la frontière, côté du premier cluster
+     * @param step      décalage entre deux cases de la frontière
+     * @param length    nombre de cases de la frontière
+     * @param direction direction qui traverse la frontière
+     */
+    private void addEntrances(final int start, final int step, final int length, final int direction) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            final boolean passable = (i < length)
+                    && this.costGrid.getCost(start + i * step, direction) != CostGrid.IMPASSABLE;
+            if (passable && runStart < 0) {
+                runStart = i;
+            } else if (!passable && runStart >= 0) {
+                final int runLength = i - runStart;
+                if (runLength < MAX_SINGLE_ENTRANCE_LENGTH) {
+                    addEntrance(start + (runStart + runLength / 2) * step, direction);
+                } else {
+                    addEntrance(start + runStart * step, direction);
+                    addEntrance(start + (i - 1) * step, direction);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void addEntrance(final int position, final int direction) {
+        final int neighbor = this.costGrid.getVoisin(position, direction);
+        final int node = addNode(position);
+        final int neighborNode = addNode(neighbor);
+        addEdge(node, neighborNode, this.costGrid.getCost(position, direction));
+        addEdge(neighborNode, node, this.costGrid.getCost(neighbor, CostGrid.getOpposite(direction)));
+    }
+
+    private int addNode(final int position) {
+        if (this.nodeOf[position] < 0) {
+            this.nodeOf[position] = this.nodePositions.size();
+            this.nodePositions.add(position);
+            this.clusterNodes.get(this.clusterOf[position]).add(position);
+            this.edgeTargets.add(new ArrayList<Integer>());
+            this.edgeCosts.add(new ArrayList<Long>());
+        }
+        return this.nodeOf[position];
+    }
+
+    private void addEdge(final int node, final int target, final long cost) {
+        this.edgeTargets.get(node).add(target);
+        this.edgeCosts.get(node).add(cost);
+    }
+
+    /**
+     * Algorithme de Dijkstra limité au cluster de src
+     *
+     * @param src
+     * @param targets positions du cluster de src
+     * @return coût de src vers chaque cible, Long.MAX_VALUE si elle n'est pas
+     *         atteignable sans sortir du cluster
+     */
+    long[] getClusterCosts(final int src, final ArrayList<Integer> targets) {
+        final long[] costs = new long[targets.size()];
+        final SearchBuffers buffers = search(src, -1);
+        for (int i = 0; i < targets.size(); i++) {
+            costs[i] = buffers.getGScore(targets.get(i));
+        }
+        return costs;
+    }
+
+    /**
+     * @param src
+     * @param dest position du même cluster que src
+     * @return plus court chemin de src à dest sans sortir du cluster, null s'il
+     *         n'y en a pas
+     */
+    Path getClusterPath(final int src, final int dest) {
+        final SearchBuffers buffers = search(src, dest);
+        if (buffers.getGScore(dest) == Long.MAX_VALUE) {
+            return null;
+        }
+        final Path.Builder path = new Path.Builder(this.costGrid);
+        int position = dest;
+        path.add(position);
+        while ((position = buffers.getCameFrom(position)) >= 0) {
+            path.add(position);
+        }
+        return path.reverse().build();
+    }
+
+    /**
+     * A* limité au cluster de src. Sans destination, explore tout le cluster.
+     *
+     * @param src
+     * @param dest destination, -1 pour explorer tout le cluster
+     * @return tableaux de la recherche
+     */
+    private SearchBuffers search(final int src, final int dest) {
+        final int cluster = this.clusterOf[src];
+        final SearchBuffers buffers = SearchBuffers.get(this.costGrid.getNbCells());
+        final IndexedMinHeap openSet = buffers.getOpenSet();
+        buffers.set(src, 0, -1);
+        openSet.push(src, (dest < 0) ? 0 : heuristique(src, dest));
+        while (!openSet.isEmpty()) {
+            final int position = openSet.pop();
+            if (position == dest)
+                break;
+            final long gScore = buffers.getGScore(position);
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                final int cost = this.costGrid.getCost(position, direction);
+                if (cost == CostGrid.IMPASSABLE)
+                    continue;
+                final int neighbor = this.costGrid.getVoisin(position, direction);
+                if (this.clusterOf[neighbor] != cluster)
+                    continue;
+                final long tentativeGScore = gScore + cost;
+                if (tentativeGScore < buffers.getGScore(neighbor)) {
+                    buffers.set(neighbor, tentativeGScore, position);
+                    openSet.push(neighbor, tentativeGScore + ((dest < 0) ? 0 : heuristique(neighbor, dest)));
+                }
+            }
+        }
+        return buffers;
+    }
+
+    /**
+     * @param src
+     * @param dest
+     * @return distance de Manhattan multipliée par le plus petit coût, minore le
+     *         coût de src à dest
+     */
+    long heuristique(final int src, final int dest) {
+        return (long) this.costGrid.getMinCost() * this.costGrid.getManhattan(src, dest);
+    }
+
+    int getClusterOf(final int position) {
+        return this.clusterOf[position];
+    }
+
+    /**
+     * @param position
+     * @return indice du noeud abstrait, -1 si la position n'est pas une entrée
+     */
+    int getNode(final int position) {
+        return this.nodeOf[position];
+    }
+
+    int getNodePosition(final int node) {
+        return this.nodePositions.get(node);
+    }
+
+    int getNbNodes() {
+        return this.nodePositions.size();
+    }
+
+    ArrayList<Integer> getClusterNodes(final int cluster) {
+        return this.clusterNodes.get(cluster);
+    }
+
+    ArrayList<Integer> getEdgeTargets(final int node) {
+        return this.edgeTargets.get(node);
+    }
+
+    ArrayList<Long> getEdgeCosts(final int node) {
+        return this.edgeCosts.get(node);
+    }
+
+    int getClusterSize() {
+        return this.clusterSize;
+    }
+}
@@ -0,0 +1,368 @@
+package game.pathfinding;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import game.Carte;
+import game.Direction;
+import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.robots.Robot;
+import game.robots.RobotType;
+
+/**
+ * Temps de déplacement d'une case vers chacune de ses 4 voisines, précalculés
+ * pour un type de robot et une vitesse. Un déplacement impossible (hors de la
+ * carte ou sur un terrain non praticable) vaut IMPASSABLE, la lecture d'un
+ * coût ne lève donc jamais d'exception.
+ * 
+ * Les grilles sont construites une fois par (Carte, RobotType, vitesse) et
+ * partagées par tous les robots correspondants. Une grille est recalculée si
+ * la carte ou les vitesses par terrain du type de robot ont changé.
+ *
+ * Une grille occupe environ 17 octets par case sur le tas (4 coûts et un
+ * booléen), quel que soit le stockage des terrains de la carte. Les terrains
+ * sont lus directement dans le stockage, sans copie, mais une carte projetée
+ * en mémoire de 10^8 cases ne peut pas être parcourue en entier: la grille,
+ * les SearchBuffers, les ReachabilityComponents et le FireIndex sont tous en
+ * O(cases).
+ *
+ * @author Nicolas Vincent
+ * @see DonneesSimulation#getTimeToMove(Robot, int, int)
+ */
+public class CostGrid {
+    /**
+     * Coût d'un déplacement impossible
+     */
+    public static final int IMPASSABLE = -1;
+
+    /**
+     * Les directions sont indexées selon leur ordre de déclaration
+     */
+    public static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * OPPOSITES[direction] indice de la direction opposée
+     */
+    private static final int[] OPPOSITES = new int[DIRECTIONS.length];
+
+    static {
+        for (final Direction direction : DIRECTIONS) {
+            for (final Direction opposite : DIRECTIONS) {
+                if (opposite.getDx() == -direction.getDx() && opposite.getDy() == -direction.getDy()) {
+                    OPPOSITES[direction.ordinal()] = opposite.ordinal();
+                }
+            }
+        }
+    }
+
+    private static final Map<Carte, Map<RobotType, Map<Double, CostGrid>>> CACHE = new WeakHashMap<Carte, Map<RobotType, Map<Double, CostGrid>>>();
+
+    /**
+     * Dimensions de la carte. La grille ne garde pas de référence vers la
+     * carte, qui est la clé du cache: sinon l'entrée ne serait jamais libérée.
+     */
+    private final int nbLignes, nbColonnes;
+
+    /**
+     * Versions de la carte et du type de robot au moment du calcul
+     */
+    private final int carteVersion, robotTypeVersion;
+
+    /**
+     * Vrai une fois la grille remplacée dans le cache par une grille
+     * recalculée: les caches dont elle est la clé peuvent l'oublier
+     */
+    private volatile boolean obsolete = false;
+
+    /**
+     * costs[4 * position + direction] temps de déplacement de position vers sa
+     * voisine dans la direction
+     */
+    private final int[] costs;
+
+    private final boolean[] walkable;
+
+    /**
+     * Coût commun à tous les déplacements possibles, IMPASSABLE si les coûts
+     * varient
+     */
+    private final int uniformCost;
+
+    /**
+     * Plus petit coût d'un déplacement possible, sert à rendre les heuristiques
+     * de distance admissibles
+     */
+    private final int minCost;
+
+    /**
+     * Décalage de position correspondant à chaque direction
+     */
+    private final int[] offsets = new int[DIRECTIONS.length];
+
+    /**
+     * Repères ALT de la grille, calculés à la première demande. Ils sont gardés
+     * ici plutôt que dans un cache dont la grille serait la clé: leurs champs de
+     * distance référencent la grille, l'entrée ne serait jamais libérée.
+     */
+    private Landmarks landmarks = null;
+
+    /**
+     * Graphes abstraits de HPA* par taille de cluster, construits à la première
+     * demande et gardés ici pour la même raison
+     */
+    private final Map<Integer, ClusterGraph> clusterGraphs = new HashMap<Integer, ClusterGraph>();
+
+    /**
+     * @param carte
+     * @param robot
+     * @return la grille de coûts du type et de la vitesse du robot
+     * @see #CostGrid(Carte, Robot)
+     * @see Carte#getVersion()
+     * @see RobotType#getVersion()
+     */
+    public static synchronized CostGrid get(final Carte carte, final Robot robot) {
+        final Map<Double, CostGrid> grids = CACHE
+                .computeIfAbsent(carte, k -> new HashMap<RobotType, Map<Double, CostGrid>>())
+                .computeIfAbsent(robot.getRobotType(), k -> new HashMap<Double, CostGrid>());
+        final CostGrid costGrid = grids.get(robot.getVitesse());
+        if (costGrid != null && costGrid.isValid(carte, robot)) {
+            return costGrid;
+        }
+        // la carte ou les vitesses par terrain ont changé depuis le calcul
+        if (costGrid != null) {
+            costGrid.obsolete = true;
+        }
+        final CostGrid newCostGrid = new CostGrid(carte, robot);
+        grids.put(robot.getVitesse(), newCostGrid);
+        return newCostGrid;
+    }
+
+    /**
+     * Même formule que DonneesSimulation#getTimeToMove(Robot, int, int)
+     * 
+     * @param carte
+     * @param robot
+     * @see Robot#getVitesse(NatureTerrain)
+     */
+    private CostGrid(final Carte carte, final Robot robot) {
+        this.carteVersion = carte.getVersion();
+        this.robotTypeVersion = robot.getRobotType().getVersion();
+        final int nbLignes = carte.getNbLignes();
+        final int nbColonnes = carte.getNbColonnes();
+        this.nbLignes = nbLignes;
+        this.nbColonnes = nbColonnes;
+        final int nbCells = nbLignes * nbColonnes;
+
+        // indexés par code de terrain, ordinal + 1: le code 0, terrain inconnu,
+        // n'est pas praticable
+        final NatureTerrain[] terrains = NatureTerrain.values();
+        final double[] vitesses = new double[terrains.length + 1];
+        final boolean[] walkableTerrains = new boolean[terrains.length + 1];
+        for (final NatureTerrain natureTerrain : terrains) {
+            final int code = natureTerrain.ordinal() + 1;
+            walkableTerrains[code] = robot.isWalkable(natureTerrain);
+            if (walkableTerrains[code]) {
+                vitesses[code] = robot.getVitesse(natureTerrain);
+            }
+        }
+
+        this.walkable = new boolean[nbCells];
+        for (int position = 0; position < nbCells; position++) {
+            this.walkable[position] = walkableTerrains[carte.getTerrainCode(position)];
+        }
+
+        for (final Direction direction : DIRECTIONS) {
+            this.offsets[direction.ordinal()] = direction.getDy() * nbColonnes + direction.getDx();
+        }
+
+        this.costs = new int[DIRECTIONS.length * nbCells];
+        for (int position = 0; position < nbCells; position++) {
+            final double vitesse = vitesses[carte.getTerrainCode(position)];
+            final int ligne = position / nbColonnes;
+            final int colonne = position % nbColonnes;
+            for (final Direction direction : DIRECTIONS) {
+                final int d = direction.ordinal();
+                final int ligneVoisin = ligne + direction.getDy();
+                final int colonneVoisin = colonne + direction.getDx();
+                final int neighbor = position + this.offsets[d];
+                if (ligneVoisin < 0 || colonneVoisin < 0 || ligneVoisin >= nbLignes || colonneVoisin >= nbColonnes
+                        || !this.walkable[position] || !this.walkable[neighbor]) {
+                    this.costs[DIRECTIONS.length * position + d] = IMPASSABLE;
+                    continue;
+                }
+                this.costs[DIRECTIONS.length * position + d] = (int) (long) (1
+                        / ((vitesse + vitesses[carte.getTerrainCode(neighbor)]) / 2)
+                        * carte.getTailleCases());
+            }
+        }
+
+        int uniformCost = IMPASSABLE;
+        int minCost = Integer.MAX_VALUE;
+        boolean uniform = true;
+        for (final int cost : this.costs) {
+            if (cost == IMPASSABLE)
+                continue;
+            if (uniformCost == IMPASSABLE) {
+                uniformCost = cost;
+            } else if (cost != uniformCost) {
+                uniform = false;
+            }
+            minCost = Math.min(minCost, cost);
+        }
+        this.uniformCost = uniform ? uniformCost : IMPASSABLE;
+        this.minCost = (minCost == Integer.MAX_VALUE) ? 0 : minCost;
+    }
+
+    /**
+     * @param position
+     * @param direction indice de la direction dans DIRECTIONS
+     * @return temps de déplacement vers la voisine, IMPASSABLE si impossible
+     */
+    public int getCost(final int position, final int direction) {
+        return this.costs[DIRECTIONS.length * position + direction];
+    }
+
+    /**
+     * @param position
+     * @param neighbor
+     * @return temps de déplacement de position vers neighbor, IMPASSABLE si ce ne
+     *         sont pas des voisines ou si le déplacement est impossible
+     */
+    public int getCostTo(final int position, final int neighbor) {
+        final int direction = getDirectionTo(position, neighbor);
+        return (direction < 0) ? IMPASSABLE : getCost(position, direction);
+    }
+
+    /**
+     * @param position
+     * @param neighbor
+     * @return indice dans DIRECTIONS de la direction de position vers neighbor,
+     *         -1 si ce ne sont pas des voisines
+     */
+    public int getDirectionTo(final int position, final int neighbor) {
+        if (neighbor < 0 || neighbor >= this.nbLignes * this.nbColonnes) {
+            return -1;
+        }
+        // comparer lignes et colonnes plutôt que les décalages: sur une carte
+        // d'une seule colonne, EST et SUD ont le même décalage
+        final int dy = neighbor / this.nbColonnes - position / this.nbColonnes;
+        final int dx = neighbor % this.nbColonnes - position % this.nbColonnes;
+        for (final Direction direction : DIRECTIONS) {
+            if (direction.getDx() == dx && direction.getDy() == dy) {
+                return direction.ordinal();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return vrai si la grille a été remplacée par une grille recalculée
+     * @see #get(Carte, Robot)
+     */
+    public boolean isObsolete() {
+        return this.obsolete;
+    }
+
+    /**
+     * @param carte carte pour laquelle la grille a été calculée
+     * @param robot
+     * @return true si ni la carte ni le type du robot n'ont changé depuis le calcul
+     */
+    private boolean isValid(final Carte carte, final Robot robot) {
+        return this.carteVersion == carte.getVersion()
+                && this.robotTypeVersion == robot.getRobotType().getVersion();
+    }
+
+    /**
+     * @param direction indice de la direction dans DIRECTIONS
+     * @return indice de la direction opposée
+     */
+    public static int getOpposite(final int direction) {
+        return OPPOSITES[direction];
+    }
+
+    /**
+     * @param position
+     * @param direction indice de la direction dans DIRECTIONS
+     * @return position voisine, valide seulement si le coût n'est pas IMPASSABLE
+     */
+    public int getVoisin(final int position, final int direction) {
+        return position + this.offsets[direction];
+    }
+
+    /**
+     * @param src
+     * @param dest
+     * @return distance de Manhattan entre src et dest, en nombre de cases
+     */
+    public int getManhattan(final int src, final int dest) {
+        final int stride = this.offsets[Direction.SUD.ordinal()];
+        return Math.abs(src / stride - dest / stride) + Math.abs(src % stride - dest % stride);
+    }
+
+    /**
+     * @param position
+     * @return true si le robot peut se trouver sur la position
+     */
+    public boolean isWalkable(final int position) {
+        return this.walkable[position];
+    }
+
+    /**
+     * @return true si tous les déplacements possibles ont le même coût
+     */
+    public boolean isUniform() {
+        return this.uniformCost != IMPASSABLE;
+    }
+
+    /**
+     * @return coût commun à tous les déplacements possibles, IMPASSABLE si les
+     *         coûts varient
+     * @see #isUniform()
+     */
+    public int getUniformCost() {
+        return this.uniformCost;
+    }
+
+    /**
+     * @return plus petit coût d'un déplacement possible, 0 si aucun déplacement
+     *         n'est possible
+     */
+    public int getMinCost() {
+        return this.minCost;
+    }
+
+    public int getNbCells() {
+        return this.walkable.length;
+    }
+
+    /**
+     * @return les repères ALT de la grille, calculés à la première demande
+     * @see Landmarks#get(CostGrid)
+     */
+    synchronized Landmarks getLandmarks() {
+        if (this.landmarks == null) {
+            this.landmarks = new Landmarks(this, Landmarks.NB_LANDMARKS);
+        }
+        return this.landmarks;
+    }
+
+    /**
+     * @param clusterSize nombre de cases d'un côté de cluster
+     * @return le graphe abstrait de la grille, construit à la première demande
+     * @see HierarchicalPathfinding
+     */
+    synchronized ClusterGraph getClusterGraph(final int clusterSize) {
+        return this.clusterGraphs.computeIfAbsent(clusterSize, k -> new ClusterGraph(this, clusterSize));
+    }
+
+    public int getNbLignes() {
+        return this.nbLignes;
+    }
+
+    public int getNbColonnes() {
+        return this.nbColonnes;
+    }
+}
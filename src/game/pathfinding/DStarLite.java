@@ -0,0 +1,314 @@
+package game.pathfinding;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.robots.Robot;
+
+/**
+ * D* Lite: planification incrémentale. La recherche part de la destination et
+ * son état (g, rhs et file de priorité) est conservé pour chaque robot. Tant
+ * que la destination d'un robot ne change pas, une nouvelle requête ne répare
+ * que la partie de la recherche touchée par le déplacement du robot ou par les
+ * coûts qui ont changé.
+ *
+ * Les coûts qui ont changé sont trouvés en comparant l'ancienne et la nouvelle
+ * grille de coûts du robot, recalculée par CostGrid quand le terrain change.
+ *
+ * @see CostGrid#get(Carte, Robot)
+ * @see IndexedMinHeap#push(int, long, long)
+ * @author Nicolas Vincent
+ */
+public class DStarLite extends Pathfinding {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DStarLite.class);
+
+    private static final long INFINITY = Long.MAX_VALUE;
+
+    /**
+     * État de la recherche d'un robot vers sa destination
+     */
+    private static class Plan {
+        private CostGrid costGrid;
+        private final int goal;
+        private int start;
+
+        /**
+         * Cumul des heuristiques entre les positions de départ successives
+         */
+        private long km = 0;
+
+        /**
+         * Plus petit coût de déplacement au moment de la création du plan, rend
+         * l'heuristique admissible tant que les coûts ne diminuent pas en-dessous
+         */
+        private final long minCost;
+
+        private final long[] g;
+        private final long[] rhs;
+        private final IndexedMinHeap openSet;
+
+        Plan(final CostGrid costGrid, final int start, final int goal) {
+            this.costGrid = costGrid;
+            this.start = start;
+            this.goal = goal;
+            this.minCost = costGrid.getMinCost();
+            this.g = new long[costGrid.getNbCells()];
+            this.rhs = new long[costGrid.getNbCells()];
+            Arrays.fill(this.g, INFINITY);
+            Arrays.fill(this.rhs, INFINITY);
+            this.openSet = new IndexedMinHeap(costGrid.getNbCells());
+            this.rhs[goal] = 0;
+            this.openSet.push(goal, heuristique(start, goal), 0);
+        }
+
+        long heuristique(final int a, final int b) {
+            return this.minCost * this.costGrid.getManhattan(a, b);
+        }
+    }
+
+    private final DonneesSimulation donneesSimulation;
+
+    private final Map<Robot, Plan> plans = new ConcurrentHashMap<Robot, Plan>();
+
+    /**
+     * @param donneesSimulation
+     */
+    public DStarLite(final DonneesSimulation donneesSimulation) {
+        this.donneesSimulation = donneesSimulation;
+    }
+
+    /**
+     * Réutilise le plan du robot si sa destination est la même, sinon en crée un
+     * nouveau.
+     *
+     * @param robot
+     * @param src
+     * @param dest
+     * @return suite de positions
+     * @throws IllegalStateException if there is no path
+     * @see #updateCosts(Plan, CostGrid)
+     * @see #computeShortestPath(Plan)
+     */
+    @Override
+    public Path shortestWay(final Robot robot, final int src, final int dest)
+            throws IllegalStateException {
+        resetExpandedNodes();
+        checkReachable(robot, src, dest);
+        final CostGrid costGrid = CostGrid.get(this.donneesSimulation.getCarte(), robot);
+        Plan plan = this.plans.get(robot);
+        if (plan == null || plan.goal != dest || plan.costGrid.getNbCells() != costGrid.getNbCells()
+                || costGrid.getMinCost() < plan.minCost) {
+            LOGGER.info("Nouveau plan pour le robot {} vers {}", robot.getId(), dest);
+            plan = new Plan(costGrid, src, dest);
+            this.plans.put(robot, plan);
+        }
+
+        synchronized (plan) {
+            if (plan.start != src) {
+                // le robot s'est déplacé: les clés déjà calculées restent des minorants
+                plan.km += plan.heuristique(plan.start, src);
+                plan.start = src;
+            }
+            if (plan.costGrid != costGrid) {
+                updateCosts(plan, costGrid);
+            }
+            computeShortestPath(plan);
+            if (plan.g[src] == INFINITY) {
+                throw new IllegalStateException("No route found");
+            }
+            return extractPath(plan);
+        }
+    }
+
+    /**
+     * Compare les deux grilles et met à jour les positions dont un arc sortant a
+     * changé de coût
+     *
+     * @param plan
+     * @param costGrid nouvelle grille de coûts
+     */
+    private void updateCosts(final Plan plan, final CostGrid costGrid) {
+        final CostGrid oldCostGrid = plan.costGrid;
+        plan.costGrid = costGrid;
+        int changes = 0;
+        for (int position = 0; position < costGrid.getNbCells(); position++) {
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                if (oldCostGrid.getCost(position, direction) != costGrid.getCost(position, direction)) {
+                    updateVertex(plan, position);
+                    changes++;
+                    break;
+                }
+            }
+        }
+        LOGGER.info("{} positions touchées par le changement de coûts", changes);
+    }
+
+    /**
+     * @param plan
+     * @param position
+     * @return [min(g, rhs) + h(start, position) + km, min(g, rhs)]
+     */
+    private static long[] calculateKey(final Plan plan, final int position) {
+        final long min = Math.min(plan.g[position], plan.rhs[position]);
+        if (min == INFINITY) {
+            return new long[] { INFINITY, INFINITY };
+        }
+        return new long[] { min + plan.heuristique(plan.start, position) + plan.km, min };
+    }
+
+    /**
+     * Recalcule rhs(position) à partir de ses successeurs et replace la position
+     * dans la file si elle est incohérente
+     *
+     * @param plan
+     * @param position
+     */
+    private static void updateVertex(final Plan plan, final int position) {
+        if (position != plan.goal) {
+            long rhs = INFINITY;
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                final int cost = plan.costGrid.getCost(position, direction);
+                if (cost == CostGrid.IMPASSABLE)
+                    continue;
+                final long g = plan.g[plan.costGrid.getVoisin(position, direction)];
+                if (g != INFINITY) {
+                    rhs = Math.min(rhs, g + cost);
+                }
+            }
+            plan.rhs[position] = rhs;
+        }
+        if (plan.g[position] != plan.rhs[position]) {
+            final long[] key = calculateKey(plan, position);
+            plan.openSet.push(position, key[0], key[1]);
+        } else {
+            plan.openSet.remove(position);
+        }
+    }
+
+    /**
+     * Met à jour les prédécesseurs de position, c'est-à-dire les voisines depuis
+     * lesquelles on peut s'y rendre
+     *
+     * @param plan
+     * @param position
+     */
+    private static void updatePredecessors(final Plan plan, final int position) {
+        for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+            final int neighbor = plan.costGrid.getVoisin(position, direction);
+            if (neighbor >= 0 && neighbor < plan.costGrid.getNbCells()
+                    && plan.costGrid.getCost(neighbor, CostGrid.getOpposite(direction)) != CostGrid.IMPASSABLE) {
+                updateVertex(plan, neighbor);
+            }
+        }
+    }
+
+    /**
+     * @param a0
+     * @param a1
+     * @param b
+     * @return true si la clé [a0, a1] précède strictement la clé b
+     */
+    private static boolean less(final long a0, final long a1, final long[] b) {
+        return a0 < b[0] || (a0 == b[0] && a1 < b[1]);
+    }
+
+    /**
+     * Traite les positions incohérentes jusqu'à ce que le départ soit cohérent et
+     * que sa clé soit minimale
+     *
+     * @param plan
+     */
+    private void computeShortestPath(final Plan plan) {
+        final IndexedMinHeap openSet = plan.openSet;
+        final int start = plan.start;
+        final int[] expandedNodes = resetExpandedNodes();
+        while (!openSet.isEmpty()
+                && (less(openSet.peekKey(), openSet.peekSecondaryKey(), calculateKey(plan, start))
+                        || plan.rhs[start] != plan.g[start])) {
+            final int position = openSet.peek();
+            final long oldKey0 = openSet.peekKey();
+            final long oldKey1 = openSet.peekSecondaryKey();
+            final long[] newKey = calculateKey(plan, position);
+            expandedNodes[0]++;
+            if (less(oldKey0, oldKey1, newKey)) {
+                openSet.push(position, newKey[0], newKey[1]);
+            } else if (plan.g[position] > plan.rhs[position]) {
+                plan.g[position] = plan.rhs[position];
+                openSet.pop();
+                updatePredecessors(plan, position);
+            } else {
+                plan.g[position] = INFINITY;
+                updateVertex(plan, position);
+                updatePredecessors(plan, position);
+            }
+        }
+    }
+
+    /**
+     * Suit les g décroissants depuis le départ jusqu'à la destination
+     *
+     * @param plan
+     * @return suite de positions
+     * @throws IllegalStateException if there is no path
+     */
+    private static Path extractPath(final Plan plan) throws IllegalStateException {
+        final Path.Builder path = new Path.Builder(plan.costGrid);
+        int position = plan.start;
+        path.add(position);
+        while (position != plan.goal) {
+            int next = -1;
+            long best = INFINITY;
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                final int cost = plan.costGrid.getCost(position, direction);
+                if (cost == CostGrid.IMPASSABLE)
+                    continue;
+                final int neighbor = plan.costGrid.getVoisin(position, direction);
+                if (plan.g[neighbor] != INFINITY && plan.g[neighbor] + cost < best) {
+                    best = plan.g[neighbor] + cost;
+                    next = neighbor;
+                }
+            }
+            if (next < 0 || path.size() > plan.costGrid.getNbCells()) {
+                throw new IllegalStateException("No route found");
+            }
+            path.add(next);
+            position = next;
+        }
+        return path.build();
+    }
+
+    /**
+     * Oublie le plan du robot
+     *
+     * @param robot
+     */
+    public void forget(final Robot robot) {
+        this.plans.remove(robot);
+    }
+
+    /**
+     * @see Pathfinding#nearestTarget(Robot, int, Collection)
+     */
+    @Override
+    public MultiTargetResult nearestTarget(final Robot robot, final int src, final Collection<Integer> targets)
+            throws IllegalStateException {
+        final AStar aStar = new AStar(this.donneesSimulation);
+        try {
+            return aStar.nearestTarget(robot, src, targets);
+        } finally {
+            resetExpandedNodes()[0] = aStar.getExpandedNodes();
+        }
+    }
+
+    @Override
+    protected Carte getCarte() {
+        return this.donneesSimulation.getCarte();
+    }
+}
@@ -0,0 +1,166 @@
+package game.pathfinding;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Temps de parcours de chaque case vers la plus proche d'un ensemble de
+ * sources, pour une grille de coûts. Le champ est calculé une seule fois par un
+ * algorithme de Dijkstra inversé partant de toutes les sources à la fois. Le
+ * coût depuis n'importe quelle case et la direction du pas suivant se lisent
+ * ensuite en O(1): un chemin se parcourt en O(longueur du chemin).
+ *
+ * @author Nicolas Vincent
+ * @see DistanceFieldManager
+ * @see CostGrid
+ */
+public class DistanceField {
+    /**
+     * Coût d'une case depuis laquelle aucune source n'est atteignable
+     */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final CostGrid costGrid;
+
+    /**
+     * costs[position] temps de parcours de position vers la source la plus
+     * proche
+     */
+    private final long[] costs;
+
+    /**
+     * directions[position] indice dans CostGrid.DIRECTIONS du pas suivant vers
+     * la source la plus proche, NO_DIRECTION pour une source ou une case depuis
+     * laquelle aucune source n'est atteignable
+     */
+    private final byte[] directions;
+
+    /**
+     * Direction d'une case sans pas suivant
+     */
+    public static final int NO_DIRECTION = -1;
+
+    /**
+     * @param costGrid
+     * @param sources  positions cibles, les positions non praticables sont
+     *                 ignorées
+     * @see IndexedMinHeap
+     */
+    public DistanceField(final CostGrid costGrid, final Collection<Integer> sources) {
+        this.costGrid = costGrid;
+        this.costs = new long[costGrid.getNbCells()];
+        Arrays.fill(this.costs, UNREACHABLE);
+
+        // file propre au champ: un champ peut être calculé pendant une recherche
+        // qui utilise les tableaux de SearchBuffers du thread, par exemple les
+        // repères demandés par l'heuristique
+        final IndexedMinHeap openSet = new IndexedMinHeap(costGrid.getNbCells());
+        for (final int source : sources) {
+            if (costGrid.isWalkable(source)) {
+                this.costs[source] = 0;
+                openSet.push(source, 0);
+            }
+        }
+
+        while (!openSet.isEmpty()) {
+            final int position = openSet.pop();
+            final long cost = this.costs[position];
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                if (costGrid.getCost(position, direction) == CostGrid.IMPASSABLE)
+                    continue;
+                // on remonte l'arc voisin -> position
+                final int neighbor = costGrid.getVoisin(position, direction);
+                final int edgeCost = costGrid.getCost(neighbor, CostGrid.getOpposite(direction));
+                if (edgeCost == CostGrid.IMPASSABLE)
+                    continue;
+                final long tentativeCost = cost + edgeCost;
+                if (tentativeCost < this.costs[neighbor]) {
+                    this.costs[neighbor] = tentativeCost;
+                    openSet.push(neighbor, tentativeCost);
+                }
+            }
+        }
+
+        // descente de gradient précalculée: la première voisine dans l'ordre de
+        // DIRECTIONS qui vérifie coût(position -> voisine) + champ(voisine) ==
+        // champ(position), indépendamment de l'ordre de sortie de la file
+        this.directions = new byte[this.costs.length];
+        for (int position = 0; position < this.costs.length; position++) {
+            this.directions[position] = NO_DIRECTION;
+            final long cost = this.costs[position];
+            if (cost == 0 || cost == UNREACHABLE)
+                continue;
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                final int edgeCost = costGrid.getCost(position, direction);
+                if (edgeCost == CostGrid.IMPASSABLE)
+                    continue;
+                final int neighbor = costGrid.getVoisin(position, direction);
+                if (this.costs[neighbor] != UNREACHABLE && this.costs[neighbor] + edgeCost == cost) {
+                    this.directions[position] = (byte) direction;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param position
+     * @return temps de parcours jusqu'à la source la plus proche, UNREACHABLE si
+     *         aucune n'est atteignable
+     */
+    public long getCost(final int position) {
+        return this.costs[position];
+    }
+
+    /**
+     * @param position
+     * @return true si une source est atteignable depuis position
+     */
+    public boolean isReachable(final int position) {
+        return this.costs[position] != UNREACHABLE;
+    }
+
+    /**
+     * @param position
+     * @return indice dans CostGrid.DIRECTIONS du pas suivant vers la source la
+     *         plus proche, NO_DIRECTION si position est une source ou si aucune
+     *         source n'est atteignable
+     */
+    public int getDirection(final int position) {
+        return this.directions[position];
+    }
+
+    /**
+     * @param position
+     * @return position suivante vers la source la plus proche, -1 si position est
+     *         une source ou si aucune source n'est atteignable
+     * @see #getDirection(int)
+     */
+    public int getNextStep(final int position) {
+        final int direction = this.directions[position];
+        return (direction == NO_DIRECTION) ? -1 : this.costGrid.getVoisin(position, direction);
+    }
+
+    /**
+     * @param src
+     * @return plus court chemin de src vers la source la plus proche, src compris
+     * @throws IllegalStateException if there is no path
+     * @see #getNextStep(int)
+     */
+    public Path getPath(final int src) throws IllegalStateException {
+        if (!isReachable(src)) {
+            throw new IllegalStateException("No route found");
+        }
+        final Path.Builder path = new Path.Builder(this.costGrid);
+        int position = src;
+        path.add(position);
+        while ((position = getNextStep(position)) >= 0) {
+            path.add(position);
+        }
+        return path.build();
+    }
+
+    public CostGrid getCostGrid() {
+        return this.costGrid;
+    }
+}
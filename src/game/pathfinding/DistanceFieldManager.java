@@ -0,0 +1,135 @@
+package game.pathfinding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.Carte;
+import game.robots.Filling;
+import game.robots.Robot;
+
+/**
+ * Champs de distance vers chaque incendie et vers les points d'eau, mis en
+ * cache par grille de coûts (donc par type de robot et vitesse). Un champ est
+ * calculé à la première demande puis partagé par tous les robots de la même
+ * grille: le temps de parcours d'un robot vers un incendie se lit en O(1).
+ * Les champs d'une grille remplacée, parce que la carte ou les vitesses d'un
+ * type de robot ont changé, sont oubliés.
+ *
+ * @author Nicolas Vincent
+ * @see DistanceField
+ * @see CostGrid#get(Carte, Robot)
+ */
+public class DistanceFieldManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DistanceFieldManager.class);
+
+    private final Carte carte;
+
+    /**
+     * A une position d'incendie correspond un champ par grille de coûts
+     */
+    private final Map<Integer, Map<CostGrid, DistanceField>> fireFields = new HashMap<Integer, Map<CostGrid, DistanceField>>();
+
+    private final Map<CostGrid, DistanceField> waterFields = new HashMap<CostGrid, DistanceField>();
+
+    /**
+     * Version de la carte pour laquelle les champs ont été calculés
+     */
+    private int carteVersion;
+
+    /**
+     * @param carte
+     */
+    public DistanceFieldManager(final Carte carte) {
+        this.carte = carte;
+        this.carteVersion = carte.getVersion();
+    }
+
+    /**
+     * Oublie tous les champs si le terrain a changé
+     * 
+     * @see Carte#getVersion()
+     */
+    private void checkVersion() {
+        if (this.carteVersion != this.carte.getVersion()) {
+            this.fireFields.clear();
+            this.waterFields.clear();
+            this.carteVersion = this.carte.getVersion();
+        }
+    }
+
+    /**
+     * Oublie les champs des grilles remplacées depuis leur calcul, par exemple
+     * après un changement des vitesses d'un type de robot. Appelé avant chaque
+     * nouveau calcul de champ: la grille remplaçante n'a pas encore de champ.
+     *
+     * @see CostGrid#isObsolete()
+     */
+    private void removeObsoleteFields() {
+        this.waterFields.keySet().removeIf(CostGrid::isObsolete);
+        this.fireFields.values().forEach(fields -> fields.keySet().removeIf(CostGrid::isObsolete));
+    }
+
+    /**
+     * @param robot
+     * @param firePosition
+     * @return champ de distance vers l'incendie pour la grille du robot
+     * @see DistanceField#DistanceField(CostGrid, java.util.Collection)
+     */
+    public synchronized DistanceField getFireField(final Robot robot, final int firePosition) {
+        checkVersion();
+        final CostGrid costGrid = CostGrid.get(this.carte, robot);
+        final Map<CostGrid, DistanceField> fields = this.fireFields.computeIfAbsent(firePosition,
+                k -> new HashMap<CostGrid, DistanceField>());
+        DistanceField field = fields.get(costGrid);
+        if (field == null) {
+            removeObsoleteFields();
+            LOGGER.info("Calcul du champ de distance vers l'incendie en {}", firePosition);
+            final ArrayList<Integer> sources = new ArrayList<Integer>();
+            sources.add(firePosition);
+            field = new DistanceField(costGrid, sources);
+            fields.put(costGrid, field);
+        }
+        return field;
+    }
+
+    /**
+     * Le robot roues se remplit à côté d'un point d'eau, le drone se remplit sur
+     * un point d'eau.
+     *
+     * @param robot
+     * @return champ de distance vers les positions de remplissage du robot, null
+     *         si le robot ne se remplit pas
+     * @see Robot#getFilling()
+     * @see Carte#getPositionsWater()
+     * @see Carte#getPositionsVoisinsWater()
+     */
+    public synchronized DistanceField getWaterField(final Robot robot) {
+        final Filling filling = robot.getFilling();
+        if (filling == Filling.NONE)
+            return null;
+        checkVersion();
+        final CostGrid costGrid = CostGrid.get(this.carte, robot);
+        DistanceField field = this.waterFields.get(costGrid);
+        if (field == null) {
+            removeObsoleteFields();
+            LOGGER.info("Calcul du champ de distance vers les points d'eau");
+            field = new DistanceField(costGrid,
+                    (filling == Filling.ON) ? this.carte.getPositionsWater() : this.carte.getPositionsVoisinsWater());
+            this.waterFields.put(costGrid, field);
+        }
+        return field;
+    }
+
+    /**
+     * Libère les champs d'un incendie éteint
+     *
+     * @param firePosition
+     */
+    public synchronized void removeFire(final int firePosition) {
+        this.fireFields.remove(firePosition);
+    }
+}
@@ -0,0 +1,214 @@
+package game.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.robots.Robot;
+
+/**
+ * HPA*: recherche d'abord un chemin dans le graphe abstrait des entrées de
+ * clusters, puis raffine chaque tronçon par une recherche limitée à un
+ * cluster. Le graphe abstrait est construit une fois par grille de coûts et
+ * partagé par toutes les requêtes.
+ *
+ * Les chemins obtenus sont presque optimaux: ils passent par les entrées des
+ * clusters. Les coûts de déplacement étant symétriques, le coût d'une entrée
+ * vers la destination est celui de la destination vers l'entrée.
+ *
+ * getExpandedNodes compte les nœuds du graphe abstrait explorés, pas les
+ * positions parcourues pour raffiner le chemin.
+ *
+ * @see ClusterGraph
+ * @see AStar
+ * @author Nicolas Vincent
+ */
+public class HierarchicalPathfinding extends Pathfinding {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchicalPathfinding.class);
+
+    /**
+     * Nombre de cases d'un côté de cluster par défaut
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 10;
+
+    private final DonneesSimulation donneesSimulation;
+    private final int clusterSize;
+
+    /**
+     * Utilisé pour les cibles multiples
+     */
+    private final AStar aStar;
+
+    /**
+     * @param donneesSimulation
+     * @see #HierarchicalPathfinding(DonneesSimulation, int)
+     */
+    public HierarchicalPathfinding(final DonneesSimulation donneesSimulation) {
+        this(donneesSimulation, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param donneesSimulation
+     * @param clusterSize       nombre de cases d'un côté de cluster
+     */
+    public HierarchicalPathfinding(final DonneesSimulation donneesSimulation, final int clusterSize) {
+        this.donneesSimulation = donneesSimulation;
+        this.clusterSize = clusterSize;
+        this.aStar = new AStar(donneesSimulation);
+    }
+
+    /**
+     * @param robot
+     * @param src
+     * @param dest
+     * @return suite de positions
+     * @throws IllegalStateException if there is no path
+     * @see ClusterGraph#getClusterPath(int, int)
+     * @see #abstractSearch(ClusterGraph, int, int)
+     */
+    @Override
+    public Path shortestWay(final Robot robot, final int src, final int dest)
+            throws IllegalStateException {
+        LOGGER.info("Recherche hiérarchique du plus court chemin");
+        resetExpandedNodes();
+        checkReachable(robot, src, dest);
+        final CostGrid costGrid = CostGrid.get(this.donneesSimulation.getCarte(), robot);
+        final ClusterGraph graph = costGrid.getClusterGraph(this.clusterSize);
+
+        if (graph.getClusterOf(src) == graph.getClusterOf(dest)) {
+            final Path path = graph.getClusterPath(src, dest);
+            if (path != null) {
+                return path;
+            }
+            // le chemin doit sortir du cluster
+        }
+
+        final LinkedList<Integer> abstractPath = abstractSearch(graph, src, dest);
+
+        /* Raffinement de chaque tronçon */
+        final Path.Builder path = new Path.Builder(costGrid);
+        path.add(src);
+        int previous = src;
+        for (final int position : abstractPath) {
+            if (graph.getClusterOf(previous) != graph.getClusterOf(position)) {
+                // arc entre deux entrées voisines
+                path.add(position);
+            } else if (previous != position) {
+                path.addAll(graph.getClusterPath(previous, position));
+            }
+            previous = position;
+        }
+        return path.build();
+    }
+
+    /**
+     * A* sur le graphe abstrait auquel on ajoute src et dest, reliés aux entrées
+     * de leur cluster
+     *
+     * @param graph
+     * @param src
+     * @param dest
+     * @return positions des entrées traversées, terminées par dest
+     * @throws IllegalStateException if there is no path
+     */
+    private LinkedList<Integer> abstractSearch(final ClusterGraph graph, final int src, final int dest)
+            throws IllegalStateException {
+        final int nbNodes = graph.getNbNodes();
+        final int srcNode = nbNodes;
+        final int destNode = nbNodes + 1;
+
+        final ArrayList<Integer> srcEntrances = graph.getClusterNodes(graph.getClusterOf(src));
+        final long[] srcCosts = graph.getClusterCosts(src, srcEntrances);
+        final ArrayList<Integer> destEntrances = graph.getClusterNodes(graph.getClusterOf(dest));
+        final long[] destCosts = graph.getClusterCosts(dest, destEntrances);
+        final HashMap<Integer, Long> costsToDest = new HashMap<Integer, Long>();
+        for (int i = 0; i < destEntrances.size(); i++) {
+            if (destCosts[i] != Long.MAX_VALUE) {
+                costsToDest.put(graph.getNode(destEntrances.get(i)), destCosts[i]);
+            }
+        }
+
+        final long[] gScore = new long[nbNodes + 2];
+        final int[] cameFrom = new int[nbNodes + 2];
+        Arrays.fill(gScore, Long.MAX_VALUE);
+        final IndexedMinHeap openSet = new IndexedMinHeap(nbNodes + 2);
+        final int[] expandedNodes = getExpandedNodesCounter();
+
+        gScore[srcNode] = 0;
+        cameFrom[srcNode] = -1;
+        openSet.push(srcNode, graph.heuristique(src, dest));
+
+        while (!openSet.isEmpty()) {
+            final int node = openSet.pop();
+            expandedNodes[0]++;
+            if (node == destNode) {
+                final LinkedList<Integer> abstractPath = new LinkedList<Integer>();
+                abstractPath.add(dest);
+                int previous = cameFrom[destNode];
+                while (previous != srcNode) {
+                    abstractPath.addFirst(graph.getNodePosition(previous));
+                    previous = cameFrom[previous];
+                }
+                return abstractPath;
+            }
+
+            if (node == srcNode) {
+                for (int i = 0; i < srcEntrances.size(); i++) {
+                    if (srcCosts[i] != Long.MAX_VALUE) {
+                        relax(graph, openSet, gScore, cameFrom, node, graph.getNode(srcEntrances.get(i)),
+                                srcCosts[i], dest, destNode);
+                    }
+                }
+                continue;
+            }
+
+            final ArrayList<Integer> targets = graph.getEdgeTargets(node);
+            final ArrayList<Long> costs = graph.getEdgeCosts(node);
+            for (int i = 0; i < targets.size(); i++) {
+                relax(graph, openSet, gScore, cameFrom, node, targets.get(i), costs.get(i), dest, destNode);
+            }
+            final Long costToDest = costsToDest.get(node);
+            if (costToDest != null) {
+                relax(graph, openSet, gScore, cameFrom, node, destNode, costToDest, dest, destNode);
+            }
+        }
+        throw new IllegalStateException("No route found");
+    }
+
+    private static void relax(final ClusterGraph graph, final IndexedMinHeap openSet, final long[] gScore,
+            final int[] cameFrom, final int node, final int target, final long cost, final int dest,
+            final int destNode) {
+        final long tentativeGScore = gScore[node] + cost;
+        if (tentativeGScore < gScore[target]) {
+            gScore[target] = tentativeGScore;
+            cameFrom[target] = node;
+            final long h = (target == destNode) ? 0 : graph.heuristique(graph.getNodePosition(target), dest);
+            openSet.push(target, tentativeGScore + h);
+        }
+    }
+
+    /**
+     * @see AStar#nearestTarget(Robot, int, Collection)
+     */
+    @Override
+    public MultiTargetResult nearestTarget(final Robot robot, final int src, final Collection<Integer> targets)
+            throws IllegalStateException {
+        try {
+            return this.aStar.nearestTarget(robot, src, targets);
+        } finally {
+            resetExpandedNodes()[0] = this.aStar.getExpandedNodes();
+        }
+    }
+
+    @Override
+    protected Carte getCarte() {
+        return this.donneesSimulation.getCarte();
+    }
+}
@@ -0,0 +1,242 @@
+package game.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Tas binaire de positions indexé par position: chaque position est présente
+ * au plus une fois, on teste sa présence en O(1) et on diminue sa clé en
+ * O(log n). Les positions de même clé sont départagées par une clé secondaire,
+ * nulle par défaut.
+ * 
+ * @author Nicolas Vincent
+ * @see AStar
+ * @see DStarLite
+ */
+public class IndexedMinHeap {
+    /**
+     * Positions rangées en tas
+     */
+    private int[] heap;
+
+    /**
+     * Indice de chaque position dans heap, -1 si elle n'est pas dans le tas
+     */
+    private int[] indexOf;
+
+    /**
+     * Clé de chaque position
+     */
+    private long[] keys;
+
+    /**
+     * Clé secondaire de chaque position, comparée à clés égales
+     */
+    private long[] secondaryKeys;
+
+    private int size = 0;
+
+    /**
+     * @param capacity nombre de positions
+     */
+    public IndexedMinHeap(final int capacity) {
+        this.heap = new int[capacity];
+        this.indexOf = new int[capacity];
+        this.keys = new long[capacity];
+        this.secondaryKeys = new long[capacity];
+        Arrays.fill(this.indexOf, -1);
+    }
+
+    /**
+     * Agrandit le tas si nécessaire. Le tas doit être vide.
+     * 
+     * @param capacity nombre de positions
+     */
+    public void ensureCapacity(final int capacity) {
+        if (this.indexOf.length < capacity) {
+            this.heap = new int[capacity];
+            this.indexOf = new int[capacity];
+            this.keys = new long[capacity];
+            this.secondaryKeys = new long[capacity];
+            Arrays.fill(this.indexOf, -1);
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean contains(final int position) {
+        return this.indexOf[position] >= 0;
+    }
+
+    /**
+     * @param position présente dans le tas
+     * @return clé de la position
+     */
+    public long getKey(final int position) {
+        return this.keys[position];
+    }
+
+    /**
+     * @param position présente dans le tas
+     * @return clé secondaire de la position
+     */
+    public long getSecondaryKey(final int position) {
+        return this.secondaryKeys[position];
+    }
+
+    /**
+     * Ajoute la position ou change sa clé si elle est déjà présente.
+     * 
+     * @param position
+     * @param key
+     * @see #push(int, long, long)
+     */
+    public void push(final int position, final long key) {
+        push(position, key, 0);
+    }
+
+    /**
+     * Ajoute la position ou change ses clés si elle est déjà présente. Les
+     * positions sont ordonnées par (key, secondaryKey).
+     * 
+     * @param position
+     * @param key
+     * @param secondaryKey
+     */
+    public void push(final int position, final long key, final long secondaryKey) {
+        final int index = this.indexOf[position];
+        final boolean decrease = index >= 0 && (key < this.keys[position]
+                || (key == this.keys[position] && secondaryKey < this.secondaryKeys[position]));
+        this.keys[position] = key;
+        this.secondaryKeys[position] = secondaryKey;
+        if (index < 0) {
+            siftUp(this.size++, position);
+        } else if (decrease) {
+            siftUp(index, position);
+        } else {
+            siftDown(index, position);
+        }
+    }
+
+    /**
+     * @return clé minimale du tas
+     */
+    public long peekKey() {
+        return this.keys[this.heap[0]];
+    }
+
+    /**
+     * @return positions présentes, dans l'ordre du tas
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(this.heap, this.size);
+    }
+
+    /**
+     * @return clé secondaire de la position de clé minimale
+     */
+    public long peekSecondaryKey() {
+        return this.secondaryKeys[this.heap[0]];
+    }
+
+    /**
+     * @return position de clé minimale
+     */
+    public int peek() {
+        return this.heap[0];
+    }
+
+    /**
+     * @return position de clé minimale, retirée du tas
+     */
+    public int pop() {
+        final int first = this.heap[0];
+        removeAt(0);
+        return first;
+    }
+
+    /**
+     * Retire la position si elle est présente.
+     * 
+     * @param position
+     */
+    public void remove(final int position) {
+        final int index = this.indexOf[position];
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Vide le tas en O(taille du tas).
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.indexOf[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    private void removeAt(final int index) {
+        final int removed = this.heap[index];
+        this.indexOf[removed] = -1;
+        final int last = this.heap[--this.size];
+        if (index == this.size) {
+            return;
+        }
+        if (less(last, removed)) {
+            siftUp(index, last);
+        } else {
+            siftDown(index, last);
+        }
+    }
+
+    /**
+     * @param a
+     * @param b
+     * @return true si les clés de a précèdent strictement celles de b
+     */
+    private boolean less(final int a, final int b) {
+        return this.keys[a] < this.keys[b]
+                || (this.keys[a] == this.keys[b] && this.secondaryKeys[a] < this.secondaryKeys[b]);
+    }
+
+    private void siftUp(int index, final int position) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final int parentPosition = this.heap[parent];
+            if (!less(position, parentPosition)) {
+                break;
+            }
+            this.heap[index] = parentPosition;
+            this.indexOf[parentPosition] = index;
+            index = parent;
+        }
+        this.heap[index] = position;
+        this.indexOf[position] = index;
+    }
+
+    private void siftDown(int index, final int position) {
+        final int half = this.size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < this.size && less(this.heap[child + 1], this.heap[child])) {
+                child++;
+            }
+            final int childPosition = this.heap[child];
+            if (!less(childPosition, position)) {
+                break;
+            }
+            this.heap[index] = childPosition;
+            this.indexOf[childPosition] = index;
+            index = child;
+        }
+        this.heap[index] = position;
+        this.indexOf[position] = index;
+    }
+}
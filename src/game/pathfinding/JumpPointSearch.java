@@ -0,0 +1,255 @@
+package game.pathfinding;
+
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.robots.Robot;
+
+/**
+ * Jump Point Search sur une grille 4-connexe. Lorsque tous les déplacements
+ * du robot ont le même coût, de nombreux plus courts chemins sont symétriques:
+ * on ne garde que ceux qui se déplacent d'abord verticalement puis
+ * horizontalement, et on saute les cases intermédiaires jusqu'au prochain
+ * point de saut.
+ *
+ * Un déplacement horizontal continue tout droit jusqu'à la destination, un
+ * obstacle ou une case ayant un voisin forcé: la case au-dessus (ou
+ * au-dessous) est libre alors que celle située derrière elle ne l'était pas.
+ * Un déplacement vertical s'arrête sur toute case depuis laquelle un saut
+ * horizontal trouve un point de saut.
+ *
+ * Si les coûts du robot varient selon le terrain, la recherche est déléguée à
+ * A*.
+ *
+ * @see AStar
+ * @see CostGrid#isUniform()
+ * @author Nicolas Vincent
+ */
+public class JumpPointSearch extends Pathfinding {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JumpPointSearch.class);
+
+    private final DonneesSimulation donneesSimulation;
+
+    /**
+     * Utilisé quand les coûts ne sont pas uniformes
+     */
+    private final AStar aStar;
+
+    /**
+     * @param donneesSimulation
+     */
+    public JumpPointSearch(final DonneesSimulation donneesSimulation) {
+        this.donneesSimulation = donneesSimulation;
+        this.aStar = new AStar(donneesSimulation);
+    }
+
+    /**
+     * @param robot
+     * @param src
+     * @param dest
+     * @return suite de positions
+     * @throws IllegalStateException if there is no path
+     * @see #jump(CostGrid, int, int, int)
+     * @see AStar#shortestWay(Robot, int, int)
+     */
+    @Override
+    public Path shortestWay(final Robot robot, final int src, final int dest)
+            throws IllegalStateException {
+        final CostGrid costGrid = CostGrid.get(this.donneesSimulation.getCarte(), robot);
+        if (!costGrid.isUniform()) {
+            LOGGER.info("Coûts non uniformes, recherche avec A*");
+            final Path path = this.aStar.shortestWay(robot, src, dest);
+            resetExpandedNodes()[0] = this.aStar.getExpandedNodes();
+            return path;
+        }
+        LOGGER.info("Recherche du plus court chemin par points de saut");
+        final int[] expandedNodes = resetExpandedNodes();
+        checkReachable(robot, src, dest);
+        final long cost = costGrid.getUniformCost();
+        final SearchBuffers buffers = SearchBuffers.get(costGrid.getNbCells());
+        final IndexedMinHeap openSet = buffers.getOpenSet();
+
+        buffers.set(src, 0, -1);
+        openSet.push(src, cost * this.aStar.heuristique(src, dest));
+
+        while (!openSet.isEmpty()) {
+            final int position = openSet.pop();
+            expandedNodes[0]++;
+            if (position == dest) {
+                return reconstructPath(costGrid, buffers, position);
+            }
+            final long gScore = buffers.getGScore(position);
+            final int parent = buffers.getCameFrom(position);
+            final int arrival = (parent < 0) ? -1 : getDirection(costGrid, parent, position);
+
+            for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+                if (!isSuccessor(costGrid, position, arrival, direction))
+                    continue;
+                final int jumpPoint = jump(costGrid, position, direction, dest);
+                if (jumpPoint < 0)
+                    continue;
+
+                final long tentativeGScore = gScore + cost * getDistance(costGrid, position, jumpPoint, direction);
+                if (tentativeGScore < buffers.getGScore(jumpPoint)) {
+                    buffers.set(jumpPoint, tentativeGScore, position);
+                    openSet.push(jumpPoint, tentativeGScore + cost * this.aStar.heuristique(jumpPoint, dest));
+                }
+            }
+        }
+        throw new IllegalStateException("No route found");
+    }
+
+    /**
+     * Voisins naturels et forcés d'un point de saut atteint selon arrival
+     *
+     * @param costGrid
+     * @param position
+     * @param arrival   direction d'arrivée, -1 pour la position de départ
+     * @param direction direction candidate
+     * @return true s'il faut sauter depuis position dans direction
+     */
+    private static boolean isSuccessor(final CostGrid costGrid, final int position, final int arrival,
+            final int direction) {
+        if (arrival < 0 || direction == arrival) {
+            return true;
+        }
+        if (direction == CostGrid.getOpposite(arrival)) {
+            return false;
+        }
+        if (isVertical(arrival)) {
+            // après un déplacement vertical, les deux directions horizontales sont naturelles
+            return true;
+        }
+        // après un déplacement horizontal, une direction verticale n'est explorée que si elle est forcée
+        return isForced(costGrid, position, arrival, direction);
+    }
+
+    /**
+     * @param costGrid
+     * @param position  position atteinte par un déplacement horizontal
+     * @param arrival   direction horizontale d'arrivée
+     * @param direction direction verticale
+     * @return true si la voisine de position dans direction est libre alors que
+     *         celle de la case précédente ne l'était pas
+     */
+    private static boolean isForced(final CostGrid costGrid, final int position, final int arrival,
+            final int direction) {
+        final int behind = costGrid.getVoisin(position, CostGrid.getOpposite(arrival));
+        return costGrid.getCost(position, direction) != CostGrid.IMPASSABLE
+                && costGrid.getCost(behind, direction) == CostGrid.IMPASSABLE;
+    }
+
+    /**
+     * Avance depuis position dans direction jusqu'au prochain point de saut
+     *
+     * @param costGrid
+     * @param position
+     * @param direction
+     * @param dest
+     * @return point de saut, -1 s'il n'y en a pas
+     */
+    private static int jump(final CostGrid costGrid, int position, final int direction, final int dest) {
+        final boolean vertical = isVertical(direction);
+        while (costGrid.getCost(position, direction) != CostGrid.IMPASSABLE) {
+            position = costGrid.getVoisin(position, direction);
+            if (position == dest) {
+                return position;
+            }
+            for (int other = 0; other < CostGrid.DIRECTIONS.length; other++) {
+                if (isVertical(other) == vertical)
+                    continue;
+                if (vertical) {
+                    // un saut horizontal depuis cette case trouve un point de saut
+                    if (jump(costGrid, position, other, dest) >= 0) {
+                        return position;
+                    }
+                } else if (isForced(costGrid, position, direction, other)) {
+                    return position;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isVertical(final int direction) {
+        return CostGrid.DIRECTIONS[direction].getDy() != 0;
+    }
+
+    /**
+     * @param costGrid
+     * @param from
+     * @param to       position alignée avec from
+     * @return direction de from vers to
+     */
+    private static int getDirection(final CostGrid costGrid, final int from, final int to) {
+        final int difference = to - from;
+        int horizontal = -1;
+        for (int direction = 0; direction < CostGrid.DIRECTIONS.length; direction++) {
+            final int offset = costGrid.getVoisin(from, direction) - from;
+            if (difference % offset != 0 || difference / offset <= 0)
+                continue;
+            // un décalage vertical est un multiple de la largeur d'une ligne
+            if (isVertical(direction)) {
+                return direction;
+            }
+            horizontal = direction;
+        }
+        return horizontal;
+    }
+
+    /**
+     * @param costGrid
+     * @param from
+     * @param to
+     * @param direction direction de from vers to
+     * @return nombre de cases entre from et to
+     */
+    private static int getDistance(final CostGrid costGrid, final int from, final int to, final int direction) {
+        return (to - from) / (costGrid.getVoisin(from, direction) - from);
+    }
+
+    /**
+     * Reconstruit le chemin complet en parcourant les segments entre points de
+     * saut
+     *
+     * @param costGrid
+     * @param buffers
+     * @param dest
+     * @return suite de positions
+     */
+    private static Path reconstructPath(final CostGrid costGrid, final SearchBuffers buffers, int dest) {
+        final Path.Builder path = new Path.Builder(costGrid);
+        path.add(dest);
+        int parent;
+        while ((parent = buffers.getCameFrom(dest)) >= 0) {
+            final int direction = getDirection(costGrid, dest, parent);
+            while (dest != parent) {
+                dest = costGrid.getVoisin(dest, direction);
+                path.add(dest);
+            }
+        }
+        return path.reverse().build();
+    }
+
+    /**
+     * @see AStar#nearestTarget(Robot, int, Collection)
+     */
+    @Override
+    public MultiTargetResult nearestTarget(final Robot robot, final int src, final Collection<Integer> targets)
+            throws IllegalStateException {
+        try {
+            return this.aStar.nearestTarget(robot, src, targets);
+        } finally {
+            resetExpandedNodes()[0] = this.aStar.getExpandedNodes();
+        }
+    }
+
+    @Override
+    protected Carte getCarte() {
+        return this.donneesSimulation.getCarte();
+    }
+}
@@ -0,0 +1,134 @@
+package game.pathfinding;
+
+import java.util.ArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Heuristique ALT (A*, Landmarks, Triangle inequality). On calcule les temps
+ * de parcours exacts depuis quelques positions repères. Pour tout repère L,
+ * l'inégalité triangulaire donne d(src, dest) >= |d(L, dest) - d(L, src)|, les
+ * coûts étant symétriques. L'heuristique est le maximum de ces bornes et de la
+ * distance de Manhattan multipliée par le plus petit coût de déplacement: elle
+ * est admissible, cohérente et exprimée en secondes comme les gScore.
+ *
+ * Les repères sont choisis de proche en proche, chacun étant la position la
+ * plus éloignée des repères déjà choisis. Une position qu'aucun repère
+ * n'atteint est choisie en priorité, ce qui couvre chaque zone praticable
+ * isolée.
+ *
+ * @author Nicolas Vincent
+ * @see DistanceField
+ * @see AStar
+ */
+public class Landmarks implements Heuristique {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Landmarks.class);
+
+    /**
+     * Nombre de repères par grille de coûts
+     */
+    public static final int NB_LANDMARKS = 6;
+
+    private final CostGrid costGrid;
+
+    /**
+     * Champ de distance de chaque repère
+     */
+    private final ArrayList<DistanceField> fields = new ArrayList<DistanceField>();
+
+    /**
+     * @param costGrid
+     * @return les repères de la grille, calculés à la première demande
+     * @see CostGrid#getLandmarks()
+     */
+    public static Landmarks get(final CostGrid costGrid) {
+        return costGrid.getLandmarks();
+    }
+
+    /**
+     * @param costGrid
+     * @param nbLandmarks nombre maximal de repères
+     */
+    Landmarks(final CostGrid costGrid, final int nbLandmarks) {
+        this.costGrid = costGrid;
+        final int nbCells = costGrid.getNbCells();
+
+        // le premier repère est choisi loin d'une position praticable quelconque
+        int landmark = -1;
+        for (int position = 0; position < nbCells && landmark < 0; position++) {
+            if (costGrid.isWalkable(position)) {
+                landmark = getFarthest(new DistanceField(costGrid, singleton(position)));
+            }
+        }
+
+        while (landmark >= 0 && this.fields.size() < nbLandmarks) {
+            this.fields.add(new DistanceField(costGrid, singleton(landmark)));
+            landmark = getFarthest(null);
+        }
+        LOGGER.info("{} repères calculés", this.fields.size());
+    }
+
+    /**
+     * @param field champ de distance, null pour utiliser les repères choisis
+     * @return position praticable la plus éloignée des sources du champ ou des
+     *         repères, -1 s'il n'y en a pas
+     */
+    private int getFarthest(final DistanceField field) {
+        int farthest = -1;
+        long farthestCost = -1;
+        for (int position = 0; position < this.costGrid.getNbCells(); position++) {
+            if (!this.costGrid.isWalkable(position))
+                continue;
+            long cost;
+            if (field != null) {
+                cost = field.getCost(position);
+                if (cost == DistanceField.UNREACHABLE)
+                    continue;
+            } else {
+                cost = DistanceField.UNREACHABLE;
+                for (final DistanceField landmarkField : this.fields) {
+                    cost = Math.min(cost, landmarkField.getCost(position));
+                }
+                if (cost == 0)
+                    continue;
+            }
+            if (cost > farthestCost) {
+                farthest = position;
+                farthestCost = cost;
+            }
+        }
+        return farthest;
+    }
+
+    private static ArrayList<Integer> singleton(final int position) {
+        final ArrayList<Integer> positions = new ArrayList<Integer>();
+        positions.add(position);
+        return positions;
+    }
+
+    /**
+     * @param src
+     * @param dest
+     * @return minorant du temps de parcours de src à dest
+     */
+    @Override
+    public int heuristique(final int src, final int dest) {
+        long bound = (long) this.costGrid.getMinCost() * this.costGrid.getManhattan(src, dest);
+        for (final DistanceField field : this.fields) {
+            final long srcCost = field.getCost(src);
+            final long destCost = field.getCost(dest);
+            if (srcCost == DistanceField.UNREACHABLE || destCost == DistanceField.UNREACHABLE)
+                continue;
+            bound = Math.max(bound, Math.abs(destCost - srcCost));
+        }
+        return (int) Math.min(bound, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return nombre de repères
+     */
+    public int size() {
+        return this.fields.size();
+    }
+}
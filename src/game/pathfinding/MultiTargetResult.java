@@ -0,0 +1,48 @@
+package game.pathfinding;
+
+import java.util.Map;
+
+/**
+ * Résultat d'une recherche vers un ensemble de cibles: la cible la plus
+ * proche, le chemin qui y mène et le coût de chaque cible atteinte.
+ * 
+ * @author Nicolas Vincent
+ * @see Pathfinding#nearestTarget(game.robots.Robot, int, java.util.Collection)
+ */
+public class MultiTargetResult {
+    private final int target;
+    private final Path path;
+    private final Map<Integer, Long> costs;
+
+    /**
+     * @param target cible la plus proche
+     * @param path   chemin vers la cible la plus proche
+     * @param costs  coût de chaque cible atteignable
+     */
+    public MultiTargetResult(final int target, final Path path, final Map<Integer, Long> costs) {
+        this.target = target;
+        this.path = path;
+        this.costs = costs;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @param target
+     * @return temps de parcours jusqu'à target, Long.MAX_VALUE si elle n'est pas
+     *         atteignable
+     */
+    public long getCost(final int target) {
+        return costs.getOrDefault(target, Long.MAX_VALUE);
+    }
+
+    public Map<Integer, Long> getCosts() {
+        return costs;
+    }
+}
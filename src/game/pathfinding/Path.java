@@ -0,0 +1,244 @@
+package game.pathfinding;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Chemin sur la grille: la position de départ suivie de la direction de
+ * chaque pas, codée sur 2 bits (32 pas par long). Le temps de parcours total
+ * et la position d'arrivée sont calculés à la construction.
+ *
+ * Un chemin est immuable et lié à la grille de coûts sur laquelle il a été
+ * calculé.
+ *
+ * @author Nicolas Vincent
+ * @see CostGrid#DIRECTIONS
+ * @see Pathfinding#shortestWay(game.robots.Robot, int, int)
+ */
+public class Path implements Iterable<Integer> {
+    private static final int BITS_PER_STEP = 2;
+    private static final int STEPS_PER_WORD = Long.SIZE / BITS_PER_STEP;
+    private static final long STEP_MASK = (1L << BITS_PER_STEP) - 1;
+
+    /**
+     * Construction d'un chemin à partir de positions voisines successives
+     */
+    public static class Builder {
+        private final CostGrid costGrid;
+        private int[] positions = new int[16];
+        private int size = 0;
+
+        /**
+         * @param costGrid grille sur laquelle le chemin est calculé
+         */
+        public Builder(final CostGrid costGrid) {
+            this.costGrid = costGrid;
+        }
+
+        /**
+         * Ajoute une position à la fin du chemin
+         *
+         * @param position
+         * @return this
+         */
+        public Builder add(final int position) {
+            if (this.size == this.positions.length) {
+                this.positions = Arrays.copyOf(this.positions, 2 * this.size);
+            }
+            this.positions[this.size++] = position;
+            return this;
+        }
+
+        /**
+         * Ajoute les positions d'un chemin, sa position de départ est ignorée si
+         * elle est déjà la dernière position ajoutée
+         *
+         * @param path
+         * @return this
+         */
+        public Builder addAll(final Path path) {
+            final PrimitiveIterator.OfInt iter = path.iterator();
+            final int first = iter.nextInt();
+            if (this.size == 0 || this.positions[this.size - 1] != first) {
+                add(first);
+            }
+            while (iter.hasNext()) {
+                add(iter.nextInt());
+            }
+            return this;
+        }
+
+        /**
+         * Inverse l'ordre des positions déjà ajoutées, pour les chemins
+         * reconstruits depuis l'arrivée
+         *
+         * @return this
+         */
+        public Builder reverse() {
+            for (int i = 0, j = this.size - 1; i < j; i++, j--) {
+                final int tmp = this.positions[i];
+                this.positions[i] = this.positions[j];
+                this.positions[j] = tmp;
+            }
+            return this;
+        }
+
+        /**
+         * @return nombre de positions ajoutées
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * @return le chemin passant par les positions ajoutées
+         * @throws IllegalArgumentException if no position was added, or if two
+         *                                  successive positions are not
+         *                                  neighbours the robot can move between
+         */
+        public Path build() throws IllegalArgumentException {
+            if (this.size == 0) {
+                throw new IllegalArgumentException("Chemin vide");
+            }
+            final int nbSteps = this.size - 1;
+            final long[] directions = new long[(nbSteps + STEPS_PER_WORD - 1) / STEPS_PER_WORD];
+            long duration = 0;
+            for (int step = 0; step < nbSteps; step++) {
+                final int direction = this.costGrid.getDirectionTo(this.positions[step], this.positions[step + 1]);
+                if (direction < 0 || this.costGrid.getCost(this.positions[step], direction) == CostGrid.IMPASSABLE) {
+                    throw new IllegalArgumentException("Déplacement impossible de " + this.positions[step] + " à "
+                            + this.positions[step + 1]);
+                }
+                duration += this.costGrid.getCost(this.positions[step], direction);
+                directions[step / STEPS_PER_WORD] |= (long) direction << (BITS_PER_STEP * (step % STEPS_PER_WORD));
+            }
+            return new Path(this.costGrid, this.positions[0], this.positions[nbSteps], nbSteps, directions, duration);
+        }
+    }
+
+    private final CostGrid costGrid;
+    private final int start;
+    private final int last;
+    private final int nbSteps;
+
+    /**
+     * Directions des pas successifs, 2 bits par pas
+     */
+    private final long[] directions;
+
+    /**
+     * Temps de parcours total, en secondes
+     */
+    private final long duration;
+
+    private Path(final CostGrid costGrid, final int start, final int last, final int nbSteps,
+            final long[] directions, final long duration) {
+        this.costGrid = costGrid;
+        this.start = start;
+        this.last = last;
+        this.nbSteps = nbSteps;
+        this.directions = directions;
+        this.duration = duration;
+    }
+
+    /**
+     * @param costGrid
+     * @param position
+     * @return chemin réduit à une position
+     */
+    public static Path of(final CostGrid costGrid, final int position) {
+        return new Builder(costGrid).add(position).build();
+    }
+
+    public int getStart() {
+        return this.start;
+    }
+
+    /**
+     * @return position d'arrivée
+     */
+    public int getLast() {
+        return this.last;
+    }
+
+    /**
+     * @return nombre de pas, size() - 1
+     */
+    public int getNbSteps() {
+        return this.nbSteps;
+    }
+
+    /**
+     * @return nombre de positions du chemin, départ compris
+     */
+    public int size() {
+        return this.nbSteps + 1;
+    }
+
+    /**
+     * @param step indice du pas, entre 0 et getNbSteps() - 1
+     * @return indice dans CostGrid.DIRECTIONS de la direction du pas
+     */
+    public int getDirection(final int step) {
+        return (int) ((this.directions[step / STEPS_PER_WORD] >>> (BITS_PER_STEP * (step % STEPS_PER_WORD)))
+                & STEP_MASK);
+    }
+
+    /**
+     * @return temps de parcours total sur la grille du chemin
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    public CostGrid getCostGrid() {
+        return this.costGrid;
+    }
+
+    /**
+     * @return positions successives, départ compris
+     */
+    public int[] toArray() {
+        final int[] positions = new int[size()];
+        int i = 0;
+        final PrimitiveIterator.OfInt iter = iterator();
+        while (iter.hasNext()) {
+            positions[i++] = iter.nextInt();
+        }
+        return positions;
+    }
+
+    /**
+     * @return itérateur sur les positions successives, départ compris
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int step = -1;
+            private int position = Path.this.start;
+
+            @Override
+            public boolean hasNext() {
+                return this.step < Path.this.nbSteps;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (this.step >= 0) {
+                    this.position = Path.this.costGrid.getVoisin(this.position, getDirection(this.step));
+                }
+                this.step++;
+                return this.position;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -1,7 +1,11 @@
 package game.pathfinding;
 
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import game.Carte;
 import game.robots.Robot;
 
 /**
@@ -10,6 +14,45 @@ import game.robots.Robot;
  * @author Nicolas Vincent
  */
 public abstract class Pathfinding {
+    /**
+     * Nombre de positions explorées par la dernière recherche de chaque thread.
+     * Les requêtes de shortestWays(List) se partagent l'instance: un compteur
+     * commun mélangerait les recherches faites en parallèle.
+     */
+    private final ThreadLocal<int[]> expandedNodes = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Requête de plus court chemin pour un robot entre src et dest
+     */
+    public static class Query {
+        private final Robot robot;
+        private final int src;
+        private final int dest;
+
+        /**
+         * @param robot
+         * @param src
+         * @param dest
+         */
+        public Query(final Robot robot, final int src, final int dest) {
+            this.robot = robot;
+            this.src = src;
+            this.dest = dest;
+        }
+
+        public Robot getRobot() {
+            return robot;
+        }
+
+        public int getSrc() {
+            return src;
+        }
+
+        public int getDest() {
+            return dest;
+        }
+    }
+
     /**
      * Calcule le plus court chemin pour le robot entre src et dest
      * 
@@ -19,5 +62,111 @@ public abstract class Pathfinding {
      * @return suite de positions
      * @throws IllegalStateException if there is no path
      */
-    public abstract LinkedList<Integer> shortestWay(Robot robot, int src, int dest) throws IllegalStateException;
+    public abstract Path shortestWay(Robot robot, int src, int dest) throws IllegalStateException;
+
+    /**
+     * Calcule les plus courts chemins de plusieurs requêtes en parallèle, sur le
+     * pool ForkJoin commun. Les recherches ne font que lire la carte et chaque
+     * thread utilise ses propres tableaux de travail: le résultat est le même
+     * qu'en appelant shortestWay pour chaque requête, dans l'ordre.
+     * 
+     * @param queries
+     * @return chemin de chaque requête, dans l'ordre des requêtes, null s'il
+     *         n'existe pas de chemin
+     * @see #shortestWay(Robot, int, int)
+     */
+    public List<Path> shortestWays(final List<Query> queries) {
+        return queries.parallelStream().map(query -> {
+            try {
+                return shortestWay(query.getRobot(), query.getSrc(), query.getDest());
+            } catch (final IllegalStateException e) {
+                return null;
+            }
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Recherche la cible la plus proche de src parmi targets. Cette
+     * implémentation par défaut calcule un chemin par cible.
+     * 
+     * @param robot
+     * @param src
+     * @param targets positions cibles
+     * @return la cible la plus proche, son chemin et le coût de chaque cible
+     * @throws IllegalStateException if there is no path to any target
+     * @see #shortestWay(Robot, int, int)
+     */
+    public MultiTargetResult nearestTarget(final Robot robot, final int src, final Collection<Integer> targets)
+            throws IllegalStateException {
+        final HashMap<Integer, Long> costs = new HashMap<Integer, Long>();
+        Path nearestPath = null;
+        long nearestCost = Long.MAX_VALUE;
+        for (final int target : targets) {
+            final Path path;
+            try {
+                path = shortestWay(robot, src, target);
+            } catch (final IllegalStateException e) {
+                continue;
+            }
+            final long cost = path.getDuration();
+            costs.put(target, cost);
+            if (cost < nearestCost) {
+                nearestCost = cost;
+                nearestPath = path;
+            }
+        }
+        if (nearestPath == null) {
+            throw new IllegalStateException("No route found");
+        }
+        return new MultiTargetResult(nearestPath.getLast(), nearestPath, costs);
+    }
+
+    /**
+     * Rejette en O(1) une requête dont src et dest ne sont pas dans la même
+     * composante, avant toute recherche
+     * 
+     * @param robot
+     * @param src
+     * @param dest
+     * @throws IllegalStateException if there is no path
+     * @see ReachabilityComponents#isConnected(int, int)
+     */
+    protected void checkReachable(final Robot robot, final int src, final int dest) throws IllegalStateException {
+        if (!ReachabilityComponents.get(getCarte(), robot).isConnected(src, dest)) {
+            throw new IllegalStateException("No route found");
+        }
+    }
+
+    /**
+     * @return compteur de positions explorées du thread courant, remis à zéro;
+     *         une recherche incrémente sa première case
+     * @see #getExpandedNodes()
+     */
+    protected int[] resetExpandedNodes() {
+        final int[] counter = this.expandedNodes.get();
+        counter[0] = 0;
+        return counter;
+    }
+
+    /**
+     * @return compteur de positions explorées du thread courant
+     * @see #resetExpandedNodes()
+     */
+    protected int[] getExpandedNodesCounter() {
+        return this.expandedNodes.get();
+    }
+
+    /**
+     * @return nombre de positions explorées lors du dernier appel à shortestWay
+     *         ou nearestTarget fait par le thread courant, 0 pour une requête
+     *         rejetée avant toute recherche
+     */
+    public int getExpandedNodes() {
+        return this.expandedNodes.get()[0];
+    }
+
+    /**
+     * @return carte sur laquelle sont calculés les chemins
+     */
+    protected abstract Carte getCarte();
 }
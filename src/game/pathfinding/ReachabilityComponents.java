@@ -0,0 +1,144 @@
+package game.pathfinding;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import game.Carte;
+import game.NatureTerrain;
+import game.robots.Robot;
+import game.robots.RobotType;
+
+/**
+ * Composantes connexes de la carte pour un ensemble de terrains praticables:
+ * deux positions ont le même numéro de composante si et seulement si un robot
+ * qui ne peut se déplacer que sur ces terrains peut aller de l'une à l'autre.
+ * Les déplacements étant symétriques, une requête sans chemin est rejetée en
+ * O(1), sans lancer de recherche.
+ *
+ * Les composantes sont calculées une fois par (Carte, terrains praticables):
+ * les types de robots qui se déplacent sur les mêmes terrains les partagent.
+ * Elles sont recalculées si la carte change.
+ *
+ * @author Nicolas Vincent
+ * @see RobotType#getTerrainVitesse()
+ * @see Pathfinding#checkReachable(Robot, int, int)
+ */
+public class ReachabilityComponents {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReachabilityComponents.class);
+
+    /**
+     * Numéro de composante d'une position non praticable
+     */
+    public static final int NO_COMPONENT = -1;
+
+    private static final Map<Carte, Map<Set<NatureTerrain>, ReachabilityComponents>> CACHE = new WeakHashMap<Carte, Map<Set<NatureTerrain>, ReachabilityComponents>>();
+
+    /**
+     * Version de la carte au moment du calcul
+     */
+    private final int carteVersion;
+
+    /**
+     * components[position] numéro de la composante de position, NO_COMPONENT
+     * si le terrain n'est pas praticable
+     */
+    private final int[] components;
+
+    private final int nbComponents;
+
+    /**
+     * @param carte
+     * @param robot
+     * @return les composantes des terrains praticables par le type du robot
+     * @see #ReachabilityComponents(Carte, Set)
+     * @see Carte#getVersion()
+     */
+    public static synchronized ReachabilityComponents get(final Carte carte, final Robot robot) {
+        final Set<NatureTerrain> walkable = EnumSet.noneOf(NatureTerrain.class);
+        walkable.addAll(robot.getRobotType().getTerrainVitesse().keySet());
+        final Map<Set<NatureTerrain>, ReachabilityComponents> components = CACHE.computeIfAbsent(carte,
+                k -> new HashMap<Set<NatureTerrain>, ReachabilityComponents>());
+        final ReachabilityComponents reachabilityComponents = components.get(walkable);
+        if (reachabilityComponents != null && reachabilityComponents.carteVersion == carte.getVersion()) {
+            return reachabilityComponents;
+        }
+        final ReachabilityComponents newComponents = new ReachabilityComponents(carte, walkable);
+        components.put(walkable, newComponents);
+        return newComponents;
+    }
+
+    /**
+     * Parcours en largeur depuis chaque position praticable qui n'a pas encore
+     * de composante
+     *
+     * @param carte
+     * @param walkable terrains praticables
+     * @see Carte#forEachNeighbor(int, java.util.function.IntConsumer)
+     */
+    private ReachabilityComponents(final Carte carte, final Set<NatureTerrain> walkable) {
+        this.carteVersion = carte.getVersion();
+        final int nbCells = carte.getNbLignes() * carte.getNbColonnes();
+        this.components = new int[nbCells];
+        final boolean[] isWalkable = new boolean[nbCells];
+        for (int position = 0; position < nbCells; position++) {
+            isWalkable[position] = walkable.contains(carte.getTerrain(position));
+            this.components[position] = NO_COMPONENT;
+        }
+
+        final int[] queue = new int[nbCells];
+        final int[] tail = new int[1];
+        int nbComponents = 0;
+        for (int start = 0; start < nbCells; start++) {
+            if (!isWalkable[start] || this.components[start] != NO_COMPONENT)
+                continue;
+            final int component = nbComponents++;
+            this.components[start] = component;
+            int head = 0;
+            tail[0] = 0;
+            queue[tail[0]++] = start;
+            while (head < tail[0]) {
+                carte.forEachNeighbor(queue[head++], neighbor -> {
+                    if (isWalkable[neighbor] && this.components[neighbor] == NO_COMPONENT) {
+                        this.components[neighbor] = component;
+                        queue[tail[0]++] = neighbor;
+                    }
+                });
+            }
+        }
+        this.nbComponents = nbComponents;
+        LOGGER.info("{} composantes pour les terrains {}", nbComponents, walkable);
+    }
+
+    /**
+     * @param position
+     * @return numéro de la composante de position, NO_COMPONENT si elle n'est
+     *         pas praticable
+     */
+    public int getComponent(final int position) {
+        return this.components[position];
+    }
+
+    /**
+     * @param src
+     * @param dest
+     * @return true s'il existe un chemin de src à dest; une position est
+     *         toujours reliée à elle-même
+     */
+    public boolean isConnected(final int src, final int dest) {
+        return src == dest
+                || (this.components[src] != NO_COMPONENT && this.components[src] == this.components[dest]);
+    }
+
+    /**
+     * @return nombre de composantes
+     */
+    public int getNbComponents() {
+        return this.nbComponents;
+    }
+}
@@ -0,0 +1,95 @@
+package game.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Tableaux de travail d'une recherche de plus court chemin, indexés par
+ * position. Ils sont réutilisés d'une recherche à l'autre par le même thread:
+ * au lieu de réinitialiser les tableaux, on incrémente un numéro de
+ * génération et une case n'est valide que si son tampon correspond à la
+ * génération courante.
+ * 
+ * @author Nicolas Vincent
+ * @see AStar
+ */
+class SearchBuffers {
+    private static final ThreadLocal<SearchBuffers> BUFFERS = ThreadLocal.withInitial(SearchBuffers::new);
+
+    /**
+     * Tableaux de la recherche arrière d'une recherche bidirectionnelle
+     */
+    private static final ThreadLocal<SearchBuffers> REVERSE_BUFFERS = ThreadLocal.withInitial(SearchBuffers::new);
+
+    private long[] gScore = new long[0];
+    private int[] cameFrom = new int[0];
+    private int[] stamp = new int[0];
+    private int generation = 0;
+
+    /**
+     * Ensemble des positions à explorer
+     */
+    private final IndexedMinHeap openSet = new IndexedMinHeap(0);
+
+    /**
+     * @param nbCells nombre de cases de la carte
+     * @return les tableaux du thread courant, prêts pour une nouvelle recherche
+     */
+    static SearchBuffers get(final int nbCells) {
+        final SearchBuffers buffers = BUFFERS.get();
+        buffers.reset(nbCells);
+        return buffers;
+    }
+
+    /**
+     * @param nbCells nombre de cases de la carte
+     * @return les tableaux de recherche arrière du thread courant, distincts de
+     *         ceux renvoyés par get
+     * @see #get(int)
+     */
+    static SearchBuffers getReverse(final int nbCells) {
+        final SearchBuffers buffers = REVERSE_BUFFERS.get();
+        buffers.reset(nbCells);
+        return buffers;
+    }
+
+    private void reset(final int nbCells) {
+        if (this.stamp.length < nbCells) {
+            this.gScore = new long[nbCells];
+            this.cameFrom = new int[nbCells];
+            this.stamp = new int[nbCells];
+            this.generation = 0;
+        }
+        this.openSet.clear();
+        this.openSet.ensureCapacity(nbCells);
+        if (++this.generation == Integer.MAX_VALUE) {
+            Arrays.fill(this.stamp, 0);
+            this.generation = 1;
+        }
+    }
+
+    /**
+     * @param position
+     * @return gScore de la position, Long.MAX_VALUE si elle n'a pas été atteinte
+     */
+    long getGScore(final int position) {
+        return (this.stamp[position] == this.generation) ? this.gScore[position] : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param position
+     * @return position précédente sur le chemin, -1 s'il n'y en a pas
+     */
+    int getCameFrom(final int position) {
+        return (this.stamp[position] == this.generation) ? this.cameFrom[position] : -1;
+    }
+
+    void set(final int position, final long gScore, final int cameFrom) {
+        this.stamp[position] = this.generation;
+        this.gScore[position] = gScore;
+        this.cameFrom[position] = cameFrom;
+    }
+
+    IndexedMinHeap getOpenSet() {
+        return this.openSet;
+    }
+}
@@ -94,6 +94,17 @@ public class Robot extends Entity {
         this.volume = this.robotType.getCapacity();
     }
 
+    public RobotType getRobotType() {
+        return this.robotType;
+    }
+
+    /**
+     * @return la vitesse du robot en km/h, hors facteur de terrain
+     */
+    public Double getVitesse() {
+        return this.vitesse;
+    }
+
     public MyRobotTypes.Type getType() {
         return this.robotType.getType();
     }
@@ -30,6 +30,7 @@ public class RobotType {
     private int maxtimeToEmpty; // temps mis pour déverser maxEmptiedVolume
     private int timeToFillUp;
     private EnumMap<NatureTerrain, Double> terrainVitesse; // renvoie la diminution de vitesse en fonction du terrain
+    private int version = 0; // incrémenté quand les terrains praticables ou les vitesses changent
 
     /**
      * @param type
@@ -128,6 +129,15 @@ public class RobotType {
 
     public void setTerrainVitesse(final EnumMap<NatureTerrain, Double> terrainVitesse) {
         this.terrainVitesse = terrainVitesse;
+        this.version++;
+    }
+
+    /**
+     * @return numéro de version des vitesses par terrain, change à chaque appel à
+     *         setTerrainVitesse
+     */
+    public int getVersion() {
+        return version;
     }
 
     public Filling getFilling() {
@@ -2,6 +2,8 @@ package io;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
@@ -14,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import game.Carte;
 import game.DonneesSimulation;
+import game.MappedTerrainStorage;
 import game.NatureTerrain;
 import game.robots.MyRobotTypes;
 import game.robots.Robot;
@@ -56,8 +59,24 @@ public class LecteurDonnees {
      */
     public static DonneesSimulation lire(final String fichierDonnees)
             throws FileNotFoundException, DataFormatException {
+        return lire(fichierDonnees, null);
+    }
+
+    /**
+     * Lit un fichier de donnees en écrivant les terrains de la carte dans un
+     * fichier projeté en mémoire plutôt que dans le tas. Si fichierTerrain
+     * contient déjà la carte, il est simplement réécrit.
+     * 
+     * @param fichierDonnees nom du fichier à lire
+     * @param fichierTerrain fichier de stockage des terrains, null pour les
+     *                       garder en mémoire
+     * @throws UncheckedIOException if fichierTerrain can't be opened
+     * @see MappedTerrainStorage
+     */
+    public static DonneesSimulation lire(final String fichierDonnees, final File fichierTerrain)
+            throws FileNotFoundException, DataFormatException {
         LOGGER.info("Lecture du fichier {}", fichierDonnees);
-        final LecteurDonnees lecteur = new LecteurDonnees(fichierDonnees);
+        final LecteurDonnees lecteur = new LecteurDonnees(fichierDonnees, fichierTerrain);
         donneesSimulation = new DonneesSimulation();
 
         lecteur.lireCarte();
@@ -74,12 +93,19 @@ public class LecteurDonnees {
 
     private static Scanner scanner;
 
+    /**
+     * Fichier de stockage des terrains, null pour les garder en mémoire
+     */
+    private final File fichierTerrain;
+
     /**
      * Constructeur prive; impossible d'instancier la classe depuis l'exterieur
      * 
      * @param fichierDonnees nom du fichier a lire
+     * @param fichierTerrain fichier de stockage des terrains, peut être null
      */
-    private LecteurDonnees(final String fichierDonnees) throws FileNotFoundException {
+    private LecteurDonnees(final String fichierDonnees, final File fichierTerrain) throws FileNotFoundException {
+        this.fichierTerrain = fichierTerrain;
         scanner = new Scanner(new File(fichierDonnees));
         scanner.useLocale(Locale.US);
     }
@@ -97,8 +123,16 @@ public class LecteurDonnees {
             final int tailleCases = scanner.nextInt(); // en m
 
             // Création de la carte
-            donneesSimulation.setCarte(new Carte(nbLignes, nbColonnes, tailleCases,
-                    new HashMap<Integer, NatureTerrain>(nbLignes * nbColonnes)));
+            if (this.fichierTerrain == null) {
+                donneesSimulation.setCarte(new Carte(nbLignes, nbColonnes, tailleCases));
+            } else {
+                try {
+                    donneesSimulation.setCarte(new Carte(nbLignes, nbColonnes, tailleCases,
+                            new MappedTerrainStorage(this.fichierTerrain, nbLignes, nbColonnes)));
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
 
             LOGGER.info("Carte {}x{}", nbLignes, nbColonnes);
             LOGGER.info("Cases de taille {}", tailleCases);
@@ -131,7 +165,7 @@ public class LecteurDonnees {
 
             // on stocke le type de terrain
             final Carte carte = donneesSimulation.getCarte();
-            carte.getMap().put(lig * carte.getNbLignes() + col, NatureTerrain.valueOf(chaineNature));
+            carte.setTerrain(lig * carte.getNbColonnes() + col, NatureTerrain.valueOf(chaineNature));
 
             verifieLigneTerminee();
 
@@ -180,7 +214,7 @@ public class LecteurDonnees {
             }
 
             // on stocke l'incendie
-            donneesSimulation.getIncendies().put(lig * donneesSimulation.getCarte().getNbLignes() + col, intensite);
+            donneesSimulation.getIncendies().put(lig * donneesSimulation.getCarte().getNbColonnes() + col, intensite);
 
             verifieLigneTerminee();
 
@@ -231,7 +265,7 @@ public class LecteurDonnees {
 
             LOGGER.info("Robot {} de type {} en position ({}, {})", i, type, lig, col);
 
-            final int position = lig * donneesSimulation.getCarte().getNbLignes() + col;
+            final int position = lig * donneesSimulation.getCarte().getNbColonnes() + col;
             // on stocke le robot
             final Robot robot = MyRobotTypes.getType(MyRobotTypes.Type.valueOf(type)).newRobot(position);
             // création de la liste s'il n'y a aucun robot à cette position
@@ -1,12 +1,13 @@
 package strategie;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import game.FireIndex;
+import game.pathfinding.Path;
 import game.pathfinding.Pathfinding;
 import game.Simulateur;
 import game.robots.Robot;
@@ -31,46 +32,78 @@ public class StrategieElementaire extends Strategie {
      * Stratégie élémentaire. Chaque robot se déplace sur le même incendie. Un robot
      * vide ne se déplace plus.
      * 
+     * Les incendies sont essayés du plus proche au plus lointain du premier robot
+     * disponible, tant qu'il reste des robots disponibles: un robot qui n'a pas de
+     * chemin vers un incendie reste disponible pour le suivant. L'index n'est
+     * interrogé que pour les incendies essayés.
+     * 
      * @param simulateur
+     * @see FireIndex#nearest(int, int)
      * @see Robot#getState()
      * @see Robot#setState(State)
      * @see Robot#isEmpty()
      * @see State
-     * @see Pathfinding#shortestWay(Robot, int, int)
-     * @see EventAdder#addPath(Robot, LinkedList)
+     * @see Pathfinding#shortestWays(List)
+     * @see EventAdder#addPath(Robot, Path)
      * @see EventAdder#addEmpty(Robot)
      */
     @Override
     public void execute(final Simulateur simulateur) {
-        final ArrayList<Robot> robots = new ArrayList<Robot>();
-        simulateur.getDonneesSimulation().getRobots().values().forEach(robots::addAll);
-
-        for (final Map.Entry<Integer, Integer> incendie : simulateur.getDonneesSimulation().getIncendies().entrySet()) {
-            final int intensite = incendie.getValue();
-            if (intensite == 0)
-                continue;
-
-            final int positionIncendie = incendie.getKey();
+        final FireIndex fireIndex = simulateur.getDonneesSimulation().getFireIndex();
+        final ArrayList<Robot> robotsDisponibles = new ArrayList<Robot>();
+        for (final List<Robot> robots : simulateur.getDonneesSimulation().getRobots().values()) {
             for (final Robot robot : robots) {
                 if (robot.isEmpty())
                     robot.setState(State.BUSY);
-                if (robot.getState() == State.BUSY)
-                    continue;
-                LOGGER.info("Recherche d'un chemin pour le robot {}", robot.getId());
+                if (robot.getState() != State.BUSY)
+                    robotsDisponibles.add(robot);
+            }
+        }
+        if (robotsDisponibles.isEmpty() || fireIndex.isEmpty())
+            return;
+
+        final int origine = robotsDisponibles.get(0).getPosition();
+        int nbEssayes = 0;
+        for (int k = 1; !robotsDisponibles.isEmpty() && nbEssayes < fireIndex.size(); k *= 2) {
+            // les k plus proches incendies commencent par ceux déjà essayés
+            final int[] incendies = fireIndex.nearest(origine, k);
+            for (int i = nbEssayes; i < incendies.length && !robotsDisponibles.isEmpty(); i++) {
+                envoyer(robotsDisponibles, incendies[i]);
+            }
+            nbEssayes = incendies.length;
+        }
+    }
 
-                LinkedList<Integer> path;
-                try {
-                    path = getPathfinding().shortestWay(robot, robot.getPosition(), positionIncendie);
-                } catch (final IllegalStateException e) {
-                    LOGGER.info("Aucun chemin n'est praticable");
-                    continue;
-                }
-                
-                LOGGER.info("Ajoût des events");
-                
-                getEventAdder().addPath(robot, path);
-                getEventAdder().addEmpty(robot, path.getLast());
+    /**
+     * Les chemins de tous les robots disponibles vers l'incendie sont calculés en
+     * parallèle. Les robots envoyés sont retirés des robots disponibles.
+     * 
+     * @param robotsDisponibles
+     * @param positionIncendie
+     */
+    private void envoyer(final ArrayList<Robot> robotsDisponibles, final int positionIncendie) {
+        final ArrayList<Pathfinding.Query> queries = new ArrayList<Pathfinding.Query>();
+        for (final Robot robot : robotsDisponibles) {
+            LOGGER.info("Recherche d'un chemin pour le robot {}", robot.getId());
+            queries.add(new Pathfinding.Query(robot, robot.getPosition(), positionIncendie));
+        }
+        final List<Path> paths = getPathfinding().shortestWays(queries);
+
+        final ArrayList<Robot> robotsEnvoyes = new ArrayList<Robot>();
+        for (int i = 0; i < queries.size(); i++) {
+            final Robot robot = queries.get(i).getRobot();
+            final Path path = paths.get(i);
+            if (path == null) {
+                LOGGER.info("Aucun chemin n'est praticable");
+                continue;
             }
+
+            LOGGER.info("Ajoût des events");
+
+            getEventAdder().addPath(robot, path);
+            getEventAdder().addEmpty(robot, path.getLast());
+            robotsEnvoyes.add(robot);
         }
+        robotsDisponibles.removeAll(robotsEnvoyes);
     }
 }
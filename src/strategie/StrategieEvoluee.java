@@ -1,17 +1,24 @@
 package strategie;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import game.DonneesSimulation;
+import game.FireIndex;
 import game.Simulateur;
+import game.pathfinding.DistanceField;
+import game.pathfinding.DistanceFieldManager;
+import game.pathfinding.Path;
 import game.pathfinding.Pathfinding;
-import game.robots.Filling;
+import game.pathfinding.ReachabilityComponents;
 import game.robots.Robot;
 import game.Entity.State;
 
@@ -30,142 +37,183 @@ public class StrategieEvoluee extends Strategie {
         super(pathfinding);
     }
 
+    /**
+     * Candidat à une affectation: temps pour qu'un robot atteigne un incendie et
+     * le vide. Les candidats sont ordonnés par durée croissante, puis par ordre
+     * des robots et position des incendies pour que l'affectation soit
+     * déterministe.
+     */
+    private static final class Candidat implements Comparable<Candidat> {
+        private final long duration;
+        private final int ordre;
+        private final Robot robot;
+        private final int positionIncendie;
+
+        Candidat(final long duration, final int ordre, final Robot robot, final int positionIncendie) {
+            this.duration = duration;
+            this.ordre = ordre;
+            this.robot = robot;
+            this.positionIncendie = positionIncendie;
+        }
+
+        @Override
+        public int compareTo(final Candidat other) {
+            if (this.duration != other.duration)
+                return Long.compare(this.duration, other.duration);
+            if (this.ordre != other.ordre)
+                return Integer.compare(this.ordre, other.ordre);
+            return Integer.compare(this.positionIncendie, other.positionIncendie);
+        }
+    }
+
     /**
      * Stratégie évoluée. Chaque robot se déplace sur un incendie différent. On
      * choisit le robot disponible le plus rapide. Un robot vide va se remplir à un
      * point d'eau
      * 
+     * Chaque robot disponible ne considère que les incendies les plus proches de
+     * lui dans l'index, autant qu'il y a de robots à affecter: l'affectation ne
+     * dépend pas du nombre d'incendies. Les couples (robot, incendie) sont
+     * affectés par durée croissante. Un robot dont tous les candidats ont été
+     * pris par des robots plus rapides recommence avec les incendies restants.
+     * 
      * @param simulateur
-     * @see #getPathDuration(Robot, LinkedList, DonneesSimulation)
+     * @see FireIndex#nearest(int, int)
+     * @see DistanceFieldManager#getFireField(Robot, int)
+     * @see DistanceFieldManager#getWaterField(Robot)
+     * @see ReachabilityComponents#isConnected(int, int)
      * @see DonneesSimulation#getRobots()
-     * @see DonneesSimulation#getIncendies()
      * @see Robot#getState()
      * @see Robot#isEmpty()
      * @see Robot#getTimeToFillUp()
      * @see State
-     * @see Pathfinding#shortestWay(Robot, int, int)
-     * @see EventAdder#addPath(Robot, LinkedList)
+     * @see Pathfinding#shortestWays(List)
+     * @see EventAdder#addPath(Robot, Path)
      * @see EventAdder#addEmpty(Robot)
      */
     @Override
     public void execute(final Simulateur simulateur) {
+        final DonneesSimulation donneesSimulation = simulateur.getDonneesSimulation();
+        if (donneesSimulation.getFireIndex().isEmpty())
+            return;
         final ArrayList<Robot> robots = new ArrayList<Robot>();
-        simulateur.getDonneesSimulation().getRobots().values().forEach(robots::addAll);
-
-        for (final Map.Entry<Integer, Integer> incendie : simulateur.getDonneesSimulation().getIncendies().entrySet()) {
-            final int intensite = incendie.getValue();
-            if (intensite == 0)
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+        final DistanceFieldManager distanceFieldManager = donneesSimulation.getDistanceFieldManager();
+
+        // robots disponibles et pleins, à affecter à un incendie, avec leur rang
+        // dans robots qui départage les durées égales
+        final ArrayList<Robot> robotsLibres = new ArrayList<Robot>();
+        final IdentityHashMap<Robot, Integer> rangs = new IdentityHashMap<Robot, Integer>();
+        for (int rang = 0; rang < robots.size(); rang++) {
+            final Robot robot = robots.get(rang);
+            if (robot.getState() == State.BUSY)
                 continue;
+            if (!robot.isEmpty()) {
+                robotsLibres.add(robot);
+                rangs.put(robot, rang);
+                continue;
+            }
+            // Le robot roues se remplit à côté d'un point d'eau
+            // Le drone se remplit sur un point d'eau
+            LOGGER.info("Recherche d'un chemin pour aller remplir le robot {} au point d'eau le plus proche",
+                    robot.getId());
+            // le champ de distance vers les points d'eau est commun à tous les robots du même type
+            final DistanceField waterField = distanceFieldManager.getWaterField(robot);
+            if (waterField == null)
+                continue;
+            final Path fillingPath;
+            try {
+                fillingPath = waterField.getPath(robot.getPosition());
+            } catch (final IllegalStateException e) {
+                LOGGER.info("Il n'existe pas de chemin praticable jusqu'à un point d'eau");
+                continue;
+            }
+            LOGGER.info("Ajoût des events pour le robot {}", robot.getId());
 
-            final int positionIncendie = incendie.getKey();
-
-            long minDuration = Long.MAX_VALUE;
-            Robot robotMinDuration = null;
-            LinkedList<Integer> pathMinDuration = null;
-
-            for (final Robot robot : robots) {
-                if (robot.getState() == State.BUSY)
-                    continue;
-                if (robot.isEmpty()) {
-                    long fillingMinDuration = Long.MAX_VALUE;
-                    LinkedList<Integer> fillingPathMinDuration = null;
-
-                    // Le robot roues se remplit à côté d'un point d'eau
-                    // Le drone se remplit sur un point d'eau
-                    ArrayList<Integer> fillingPositions = null;
-                    final Filling robotFilling = robot.getFilling();
-                    if (robotFilling == Filling.ON) {
-                        fillingPositions = simulateur.getDonneesSimulation().getCarte().getPositionsWater();
-                    } else if (robotFilling == Filling.NEXT) {
-                        fillingPositions = simulateur.getDonneesSimulation().getCarte().getPositionsVoisinsWater();
-                    } else if (robotFilling == Filling.NONE) {
-                        continue;
-                    }
-                    if (fillingPositions == null)
-                        continue;
-
-                    for (final int positionWater : fillingPositions) {
-                        LOGGER.info(
-                                "Recherche d'un chemin pour aller remplir le robot {} au point d'eau le plus proche",
-                                robot.getId());
-
-                        LinkedList<Integer> path;
-                        try {
-                            path = getPathfinding().shortestWay(robot, robot.getPosition(), positionWater);
-                        } catch (final IllegalStateException e) {
-                            LOGGER.info("Aucun chemin n'est praticable");
-                            continue;
-                        }
-
-                        long duration = getPathDuration(robot, path, simulateur.getDonneesSimulation());
-                        duration += robot.getTimeToFillUp();
-
-                        if (duration < fillingMinDuration) {
-                            fillingPathMinDuration = path;
-                            fillingMinDuration = duration;
-                        }
-                    }
-                    if (fillingPathMinDuration == null) {
-                        LOGGER.info("Il n'existe pas de chemin praticable jusqu'à un point d'eau");
-                    } else {
-                        // on envoie le robot le plus rapide
-                        LOGGER.info("Ajoût des events pour le robot {}", robot.getId());
+            getEventAdder().addPath(robot, fillingPath);
+            getEventAdder().addFilling(robot);
+        }
 
-                        getEventAdder().addPath(robot, fillingPathMinDuration);
-                        getEventAdder().addFilling(robot);
-                    }
-                    continue;
+        // robots choisis, dont les chemins sont calculés ensemble après l'affectation
+        final HashSet<Integer> incendiesAffectes = new HashSet<Integer>();
+        final ArrayList<Pathfinding.Query> queries = new ArrayList<Pathfinding.Query>();
+        final Set<Robot> robotsAffectes = Collections.newSetFromMap(new IdentityHashMap<Robot, Boolean>());
+        while (!robotsLibres.isEmpty()) {
+            final ArrayList<Candidat> candidats = new ArrayList<Candidat>();
+            for (final Iterator<Robot> iterator = robotsLibres.iterator(); iterator.hasNext();) {
+                final Robot robot = iterator.next();
+                if (!addCandidats(donneesSimulation, robot, rangs.get(robot),
+                        incendiesAffectes.size() + robotsLibres.size(), incendiesAffectes, candidats)) {
+                    LOGGER.info("Aucun chemin n'est praticable pour le robot {}", robot.getId());
+                    iterator.remove();
                 }
-                LOGGER.info("Recherche d'un chemin pour le robot {}", robot.getId());
-
-                LinkedList<Integer> path;
-                try {
-                    path = getPathfinding().shortestWay(robot, robot.getPosition(), positionIncendie);
-                } catch (final IllegalStateException e) {
-                    LOGGER.info("Aucun chemin n'est praticable");
+            }
+            Collections.sort(candidats);
+            for (final Candidat candidat : candidats) {
+                if (robotsAffectes.contains(candidat.robot) || incendiesAffectes.contains(candidat.positionIncendie))
                     continue;
-                }
-
-                long duration = getPathDuration(robot, path, simulateur.getDonneesSimulation());
-                duration += simulateur.getDonneesSimulation().getTimeToEmpty(robot, path.getLast());
-
-                if (duration < minDuration) {
-                    robotMinDuration = robot;
-                    pathMinDuration = path;
-                    minDuration = duration;
-                }
+                robotsAffectes.add(candidat.robot);
+                incendiesAffectes.add(candidat.positionIncendie);
+                queries.add(new Pathfinding.Query(candidat.robot, candidat.robot.getPosition(),
+                        candidat.positionIncendie));
             }
-            if (pathMinDuration == null) {
-                LOGGER.info("Tous les robots sont occupés");
-            } else {
-                // on envoie le robot le plus rapide
-                LOGGER.info("Ajoût des events pour le robot {}", robotMinDuration.getId());
+            robotsLibres.removeIf(robotsAffectes::contains);
+        }
 
-                getEventAdder().addPath(robotMinDuration, pathMinDuration);
-                getEventAdder().addEmpty(robotMinDuration, pathMinDuration.getLast());
+        // les chemins sont calculés en parallèle
+        final List<Path> paths = getPathfinding().shortestWays(queries);
+        for (int i = 0; i < queries.size(); i++) {
+            final Robot robot = queries.get(i).getRobot();
+            final Path path = paths.get(i);
+            if (path == null) {
+                LOGGER.info("Aucun chemin n'est praticable pour le robot {}", robot.getId());
+                continue;
             }
+            LOGGER.info("Ajoût des events pour le robot {}", robot.getId());
+
+            getEventAdder().addPath(robot, path);
+            getEventAdder().addEmpty(robot, path.getLast());
         }
     }
 
     /**
-     * @param robot
-     * @param path
+     * Ajoûte les candidats du robot parmi ses k plus proches incendies non
+     * affectés. Si aucun n'est atteignable, k est doublé jusqu'à couvrir tous les
+     * incendies. Le temps de parcours est lu dans le champ de distance de
+     * l'incendie, un incendie hors de la composante du robot est écarté sans
+     * calculer son champ.
+     * 
      * @param donneesSimulation
-     * @return durée mise par le robot pour se déplacer en suivant path
-     * @see DonneesSimulation#getTimeToMove(Robot, int, int)
+     * @param robot
+     * @param ordre             rang du robot, départage les durées égales
+     * @param k                 nombre d'incendies considérés au départ
+     * @param incendiesAffectes
+     * @param candidats
+     * @return false si aucun incendie non affecté n'est atteignable par le robot
      */
-    private long getPathDuration(final Robot robot, final LinkedList<Integer> path,
-            final DonneesSimulation donneesSimulation) {
-        long duration = 0;
-
-        final Iterator<Integer> iter = path.iterator();
-        int currentPosition = iter.next();
-        while (iter.hasNext()) {
-            final int nextPosition = iter.next();
-            duration += donneesSimulation.getTimeToMove(robot, currentPosition, nextPosition);
-            currentPosition = nextPosition;
+    private static boolean addCandidats(final DonneesSimulation donneesSimulation, final Robot robot,
+            final int ordre, final int k, final HashSet<Integer> incendiesAffectes,
+            final ArrayList<Candidat> candidats) {
+        final FireIndex fireIndex = donneesSimulation.getFireIndex();
+        final ReachabilityComponents components = ReachabilityComponents.get(donneesSimulation.getCarte(), robot);
+        final int position = robot.getPosition();
+        for (int nb = k;; nb *= 2) {
+            final int[] incendies = fireIndex.nearest(position, nb);
+            boolean found = false;
+            for (final int positionIncendie : incendies) {
+                if (incendiesAffectes.contains(positionIncendie) || !components.isConnected(position, positionIncendie))
+                    continue;
+                final long pathDuration = donneesSimulation.getDistanceFieldManager()
+                        .getFireField(robot, positionIncendie).getCost(position);
+                if (pathDuration == DistanceField.UNREACHABLE)
+                    continue;
+                candidats.add(new Candidat(pathDuration + donneesSimulation.getTimeToEmpty(robot, positionIncendie),
+                        ordre, robot, positionIncendie));
+                found = true;
+            }
+            if (found || incendies.length == fireIndex.size()) {
+                return found;
+            }
         }
-        return duration;
     }
-    
 }
@@ -1,9 +1,17 @@
 package tests;
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 import java.util.zip.DataFormatException;
 
+import game.Carte;
 import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.robots.Robot;
+import game.robots.RobotType;
 import io.LecteurDonnees;
 
 interface InterfaceDonneesSimulation {
@@ -23,4 +31,35 @@ interface InterfaceDonneesSimulation {
         }
         return donneesSimulation;
     }
+
+    /**
+     * Carte carrée de rochers, de forêts et de terrain libre tirés au hasard,
+     * sans incendie
+     *
+     * @param random
+     * @param taille      nombre de lignes et de colonnes
+     * @param tailleCases
+     * @param partRoches  proportion de rochers
+     * @param partForets  proportion de forêts
+     * @param robotTypes  un robot de chaque type est placé en position 0
+     * @return données de la carte
+     */
+    static DonneesSimulation getCarteAleatoire(final Random random, final int taille, final int tailleCases,
+            final double partRoches, final double partForets, final RobotType... robotTypes) {
+        final Map<Integer, NatureTerrain> map = new HashMap<Integer, NatureTerrain>();
+        for (int position = 0; position < taille * taille; position++) {
+            final double tirage = random.nextDouble();
+            map.put(position, (tirage < partRoches) ? NatureTerrain.ROCHE
+                    : (tirage < partRoches + partForets) ? NatureTerrain.FORET : NatureTerrain.TERRAIN_LIBRE);
+        }
+        final DonneesSimulation donneesSimulation = new DonneesSimulation();
+        donneesSimulation.setCarte(new Carte(taille, taille, tailleCases, map));
+        donneesSimulation.setIncendies(new HashMap<Integer, Integer>());
+        final Map<Integer, ArrayList<Robot>> robots = new HashMap<Integer, ArrayList<Robot>>();
+        for (final RobotType robotType : robotTypes) {
+            robots.computeIfAbsent(0, k -> new ArrayList<Robot>()).add(robotType.newRobot(0));
+        }
+        donneesSimulation.setRobots(robots);
+        return donneesSimulation;
+    }
 }
@@ -0,0 +1,87 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.pathfinding.AStar;
+import game.pathfinding.BoundedPath;
+import game.robots.MyRobotTypes;
+import game.robots.Robot;
+
+/**
+ * Compare A* pondéré et ARA* à A*: le coût de chaque chemin doit respecter le
+ * facteur de sous-optimalité annoncé. Affiche le surcoût moyen, le facteur
+ * moyen et le nombre de positions explorées.
+ */
+public class TestAnytimeAStar {
+    private static final int NB_REQUETES = 50;
+
+    public static void main(String[] args) {
+        final String[] cartes = {"cartes/mushroomOfHell-20x20.map", "cartes/spiralOfMadness-50x50.map"};
+        for (final String carte : cartes) {
+            compare(carte, InterfaceDonneesSimulation.getDonneesSimulation(new String[]{carte}));
+        }
+        compare("carte aléatoire 300x300", InterfaceDonneesSimulation.getCarteAleatoire(new Random(1), 300, 100,
+                0.25, 0.25, MyRobotTypes.getChenilles()));
+    }
+
+    private static void compare(final String nom, final DonneesSimulation donneesSimulation) {
+        final AStar aStar = new AStar(donneesSimulation);
+        final Carte carte = donneesSimulation.getCarte();
+        final int nbCells = carte.getNbLignes() * carte.getNbColonnes();
+        final String[] algorithmes = {"A*", "pondéré 1.5", "pondéré 3", "ARA* 3, 2 ms", "ARA* 3, sans limite"};
+
+        final ArrayList<Robot> robots = new ArrayList<Robot>();
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+        for (final Robot robot : robots) {
+            final Random random = new Random(0);
+            int erreurs = 0;
+            final long[] couts = new long[algorithmes.length];
+            final double[] facteurs = new double[algorithmes.length];
+            final long[] expanded = new long[algorithmes.length];
+            int nbChemins = 0;
+            for (int i = 0; i < NB_REQUETES; i++) {
+                final int src = random.nextInt(nbCells);
+                final int dest = random.nextInt(nbCells);
+                final BoundedPath[] paths = new BoundedPath[algorithmes.length];
+                try {
+                    paths[0] = new BoundedPath(aStar.shortestWay(robot, src, dest), 1.0);
+                } catch (final IllegalStateException e) {
+                    continue;
+                }
+                expanded[0] += aStar.getExpandedNodes();
+                paths[1] = aStar.weightedShortestWay(robot, src, dest, 1.5);
+                expanded[1] += aStar.getExpandedNodes();
+                paths[2] = aStar.weightedShortestWay(robot, src, dest, 3);
+                expanded[2] += aStar.getExpandedNodes();
+                paths[3] = aStar.anytimeShortestWay(robot, src, dest, 3, 2);
+                expanded[3] += aStar.getExpandedNodes();
+                paths[4] = aStar.anytimeShortestWay(robot, src, dest, 3, Long.MAX_VALUE);
+                expanded[4] += aStar.getExpandedNodes();
+
+                final long optimal = paths[0].getPath().getDuration();
+                for (int a = 0; a < algorithmes.length; a++) {
+                    final long cout = paths[a].getPath().getDuration();
+                    // le facteur est un quotient de coûts, à l'arrondi près
+                    if (paths[a].getPath().getLast() != dest || cout > paths[a].getBound() * optimal + 1e-6
+                            || (a == 4 && (cout != optimal || !paths[a].isOptimal()))) {
+                        erreurs++;
+                        System.out.println("Erreur " + src + " -> " + dest + ", " + algorithmes[a] + ": " + cout
+                                + " pour un optimum de " + optimal + ", facteur " + paths[a].getBound());
+                    }
+                    couts[a] += cout;
+                    facteurs[a] += paths[a].getBound();
+                }
+                nbChemins++;
+            }
+            System.out.println(nom + ", " + robot.getType() + ": erreurs " + erreurs);
+            for (int a = 0; a < algorithmes.length; a++) {
+                System.out.println(String.format("    %-20s surcoût %6.2f%%, facteur moyen %.3f, positions explorées %d",
+                        algorithmes[a], 100.0 * (couts[a] - couts[0]) / Math.max(1, couts[0]),
+                        facteurs[a] / Math.max(1, nbChemins), expanded[a]));
+            }
+        }
+    }
+}
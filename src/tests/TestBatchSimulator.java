@@ -0,0 +1,21 @@
+package tests;
+
+import java.io.FileNotFoundException;
+import java.util.zip.DataFormatException;
+
+import game.BatchSimulator;
+import game.pathfinding.AStar;
+import strategie.StrategieElementaire;
+import strategie.StrategieEvoluee;
+
+public class TestBatchSimulator {
+    public static void main(String[] args) throws FileNotFoundException, DataFormatException {
+        args = new String[]{"cartes/carteSujet.map"};
+
+        final BatchSimulator elementaire = new BatchSimulator(args[0], AStar::new, StrategieElementaire::new);
+        System.out.println("Stratégie élémentaire: " + elementaire.run(BatchSimulator.DEFAULT_MAX_DATE));
+
+        final BatchSimulator evoluee = new BatchSimulator(args[0], AStar::new, StrategieEvoluee::new);
+        System.out.println("Stratégie évoluée: " + evoluee.run(BatchSimulator.DEFAULT_MAX_DATE));
+    }
+}
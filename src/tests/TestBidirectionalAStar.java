@@ -0,0 +1,66 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.pathfinding.AStar;
+import game.pathfinding.Path;
+import game.robots.Robot;
+
+/**
+ * Compare les modes UNIDIRECTIONAL et BIDIRECTIONAL de AStar: mêmes coûts,
+ * nombre de positions explorées.
+ */
+public class TestBidirectionalAStar {
+    private static final int NB_REQUETES = 200;
+
+    public static void main(String[] args) {
+        final String[] cartes = {"cartes/carteSujet.map", "cartes/desertOfDeath-20x20.map",
+                "cartes/mushroomOfHell-20x20.map", "cartes/spiralOfMadness-50x50.map"};
+        for (final String nom : cartes) {
+            final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation
+                    .getDonneesSimulation(new String[]{nom});
+            final AStar aStar = new AStar(donneesSimulation);
+            final Carte carte = donneesSimulation.getCarte();
+            final int nbCells = carte.getNbLignes() * carte.getNbColonnes();
+            final Random random = new Random(0);
+
+            final ArrayList<Robot> robots = new ArrayList<Robot>();
+            donneesSimulation.getRobots().values().forEach(robots::addAll);
+            for (final Robot robot : robots) {
+                int erreurs = 0;
+                long expandedUni = 0;
+                long expandedBi = 0;
+                for (int i = 0; i < NB_REQUETES; i++) {
+                    final int src = random.nextInt(nbCells);
+                    final int dest = random.nextInt(nbCells);
+                    long coutUni = -1;
+                    long coutBi = -1;
+                    try {
+                        coutUni = aStar.shortestWay(robot, src, dest, AStar.Mode.UNIDIRECTIONAL).getDuration();
+                    } catch (final IllegalStateException e) {
+                    }
+                    expandedUni += aStar.getExpandedNodes();
+                    try {
+                        final Path path = aStar.shortestWay(robot, src, dest,
+                                AStar.Mode.BIDIRECTIONAL);
+                        if (path.getStart() == src && path.getLast() == dest) {
+                            coutBi = path.getDuration();
+                        }
+                    } catch (final IllegalStateException e) {
+                    }
+                    expandedBi += aStar.getExpandedNodes();
+                    if (coutUni != coutBi) {
+                        erreurs++;
+                        System.out.println("Erreur " + src + " -> " + dest + ": A* " + coutUni + ", bidirectionnel "
+                                + coutBi);
+                    }
+                }
+                System.out.println(nom + ", " + robot.getType() + ": erreurs " + erreurs
+                        + ", positions explorées A* " + expandedUni + ", bidirectionnel " + expandedBi);
+            }
+        }
+    }
+}
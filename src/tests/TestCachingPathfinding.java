@@ -0,0 +1,43 @@
+package tests;
+
+import java.util.Arrays;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.pathfinding.AStar;
+import game.pathfinding.CachingPathfinding;
+import game.pathfinding.Path;
+import game.robots.Robot;
+
+public class TestCachingPathfinding {
+    public static void main(String[] args) {
+        args = new String[]{"cartes/carteSujet.map"};
+        final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation.getDonneesSimulation(args);
+        final CachingPathfinding pathfinding = new CachingPathfinding(new AStar(donneesSimulation), 2);
+        final Carte carte = donneesSimulation.getCarte();
+        final Robot robot = donneesSimulation.getRobot(1); // robot à roues
+
+        /* Le même chemin demandé deux fois n'est calculé qu'une fois */
+        final Path path = pathfinding.shortestWay(robot, robot.getPosition(), 3);
+        final Path cachedPath = pathfinding.shortestWay(robot, robot.getPosition(), 3);
+        System.out.println("Chemin identique: " + (path == cachedPath) + ", " + pathfinding);
+
+        /* Au-delà de la capacité, le chemin le moins récemment utilisé est oublié */
+        pathfinding.shortestWay(robot, robot.getPosition(), 2);
+        pathfinding.shortestWay(robot, robot.getPosition(), 1);
+        pathfinding.shortestWay(robot, robot.getPosition(), 3);
+        System.out.println("Après éviction: " + pathfinding);
+
+        /* Une modification du terrain invalide le cache */
+        final int position = path.toArray()[1];
+        final NatureTerrain natureTerrain = carte.getTerrain(position);
+        final long hits = pathfinding.getHits();
+        carte.setTerrain(position, NatureTerrain.ROCHE);
+        final Path newPath = pathfinding.shortestWay(robot, robot.getPosition(), 3);
+        System.out.println("Chemin recalculé: "
+                + (pathfinding.getHits() == hits && Arrays.stream(newPath.toArray()).noneMatch(p -> p == position))
+                + ", " + pathfinding);
+        carte.setTerrain(position, natureTerrain);
+    }
+}
@@ -0,0 +1,98 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import game.Carte;
+import game.Direction;
+import game.NatureTerrain;
+
+/**
+ * Vérifie la vue Map du terrain de Carte: même contenu que la Map d'origine,
+ * parcours par position croissante, écriture répercutée sur la carte. Compare
+ * le temps de lecture des terrains avec celui d'une HashMap, puis les voisines
+ * données par l'adjacence précalculée avec celles données par getVoisin.
+ */
+public class TestCarte {
+    private static final int TAILLE = 500;
+    private static final int NB_PARCOURS = 20;
+
+    public static void main(String[] args) {
+        final Random random = new Random(0);
+        final NatureTerrain[] natures = NatureTerrain.values();
+        final Map<Integer, NatureTerrain> map = new HashMap<Integer, NatureTerrain>();
+        for (int position = 0; position < TAILLE * TAILLE; position++) {
+            map.put(position, natures[random.nextInt(natures.length)]);
+        }
+        final Carte carte = new Carte(TAILLE, TAILLE, 100, map);
+
+        System.out.println("Même contenu: " + carte.getMap().equals(map) + ", taille " + carte.getMap().size());
+
+        int previous = -1;
+        boolean ordonne = true;
+        for (final int position : carte.getMap().keySet()) {
+            ordonne &= position > previous;
+            previous = position;
+        }
+        System.out.println("Parcours ordonné: " + ordonne);
+
+        final int version = carte.getVersion();
+        final NatureTerrain ancien = carte.getMap().put(0, NatureTerrain.EAU == map.get(0)
+                ? NatureTerrain.ROCHE : NatureTerrain.EAU);
+        System.out.println("Écriture répercutée: " + (ancien == map.get(0) && carte.getTerrain(0) != ancien
+                && carte.getVersion() == version + 1
+                && carte.getPositionsWater().contains(0) == (carte.getTerrain(0) == NatureTerrain.EAU)));
+        carte.setTerrain(0, ancien);
+
+        long start = System.nanoTime();
+        int nbEau = 0;
+        for (int i = 0; i < NB_PARCOURS; i++) {
+            for (int position = 0; position < TAILLE * TAILLE; position++) {
+                if (map.get(position) == NatureTerrain.EAU)
+                    nbEau++;
+            }
+        }
+        final long dureeMap = System.nanoTime() - start;
+        start = System.nanoTime();
+        int nbEauCarte = 0;
+        for (int i = 0; i < NB_PARCOURS; i++) {
+            for (int position = 0; position < TAILLE * TAILLE; position++) {
+                if (carte.getTerrain(position) == NatureTerrain.EAU)
+                    nbEauCarte++;
+            }
+        }
+        final long dureeCarte = System.nanoTime() - start;
+        System.out.println("Lectures identiques: " + (nbEau == nbEauCarte) + ", HashMap " + dureeMap / 1_000_000
+                + " ms, Carte " + dureeCarte / 1_000_000 + " ms");
+
+        int erreurs = 0;
+        for (int position = 0; position < TAILLE * TAILLE; position++) {
+            final ArrayList<Integer> voisines = new ArrayList<Integer>();
+            boolean eau = false;
+            for (final Direction direction : Direction.values()) {
+                try {
+                    final int voisine = carte.getVoisin(position, direction);
+                    voisines.add(voisine);
+                    eau |= carte.getTerrain(voisine) == NatureTerrain.EAU;
+                } catch (final IllegalArgumentException e) {
+                    // hors de la carte
+                }
+            }
+            if (!voisines.equals(carte.getNeighbors(position)) || voisines.size() != carte.getNbNeighbors(position)
+                    || eau != carte.existTerrainVoisin(position, NatureTerrain.EAU)) {
+                erreurs++;
+            }
+        }
+        final int[] somme = new int[1];
+        start = System.nanoTime();
+        for (int i = 0; i < NB_PARCOURS; i++) {
+            for (int position = 0; position < TAILLE * TAILLE; position++) {
+                carte.forEachNeighbor(position, voisine -> somme[0] += voisine);
+            }
+        }
+        System.out.println("Voisines: erreurs " + erreurs + ", forEachNeighbor "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,91 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.pathfinding.AStar;
+import game.pathfinding.DStarLite;
+import game.pathfinding.Path;
+import game.robots.MyRobotTypes;
+import game.robots.Robot;
+
+/**
+ * Fait avancer des robots vers une destination fixe pendant que des rochers
+ * apparaissent sur leur chemin, et compare les chemins de DStarLite à ceux
+ * d'un nouveau calcul de AStar: mêmes coûts, nombre de positions traitées.
+ */
+public class TestDStarLite {
+    private static final int TAILLE = 100;
+    private static final int NB_ETAPES = 40;
+
+    public static void main(String[] args) {
+        final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation.getCarteAleatoire(new Random(1),
+                TAILLE, 100, 0.15, 0.25, MyRobotTypes.getPattes(), MyRobotTypes.getChenilles());
+        final Carte carte = donneesSimulation.getCarte();
+        carte.setTerrain(0, NatureTerrain.TERRAIN_LIBRE);
+        carte.setTerrain(TAILLE * TAILLE - 1, NatureTerrain.TERRAIN_LIBRE);
+        final AStar aStar = new AStar(donneesSimulation);
+        final DStarLite dStarLite = new DStarLite(donneesSimulation);
+        final Random random = new Random(2);
+
+        final ArrayList<Robot> robots = new ArrayList<Robot>();
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+        for (final Robot robot : robots) {
+            int position = 0;
+            final int dest = TAILLE * TAILLE - 1;
+            int erreurs = 0;
+            long expandedAStar = 0;
+            long expandedDStar = 0;
+            for (int etape = 0; etape < NB_ETAPES && position != dest; etape++) {
+                long coutAStar = -1;
+                long cout = -1;
+                try {
+                    coutAStar = aStar.shortestWay(robot, position, dest).getDuration();
+                } catch (final IllegalStateException e) {
+                }
+                expandedAStar += aStar.getExpandedNodes();
+                Path path = null;
+                try {
+                    path = dStarLite.shortestWay(robot, position, dest);
+                    cout = path.getDuration();
+                } catch (final IllegalStateException e) {
+                }
+                // le premier calcul est complet dans les deux cas
+                if (etape > 0) {
+                    expandedDStar += dStarLite.getExpandedNodes();
+                } else {
+                    expandedAStar -= aStar.getExpandedNodes();
+                }
+                if (coutAStar != cout) {
+                    erreurs++;
+                    System.out.println("Erreur " + position + " -> " + dest + ": A* " + coutAStar + ", D* Lite "
+                            + cout);
+                }
+                if (path == null)
+                    break;
+
+                // le robot avance de quelques cases puis un rocher bloque la suite
+                final Iterator<Integer> iter = path.iterator();
+                for (int i = 0; i < 4 && iter.hasNext(); i++) {
+                    position = iter.next();
+                }
+                for (int i = 0; i < 1 + random.nextInt(8) && iter.hasNext(); i++) {
+                    iter.next();
+                }
+                if (iter.hasNext()) {
+                    final int obstacle = iter.next();
+                    if (obstacle != dest) {
+                        carte.setTerrain(obstacle, NatureTerrain.ROCHE);
+                    }
+                }
+            }
+            System.out.println(robot.getType() + ": erreurs " + erreurs + ", positions traitées A* " + expandedAStar
+                    + ", D* Lite " + expandedDStar);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package tests;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import game.events.Event;
+import game.events.EventQueue;
+
+public class TestEventQueues {
+    public static void main(final String[] args) {
+        final int nbEvents = 200000;
+        // premier passage pour la compilation JIT, les temps ne sont pas affichés
+        for (final EventQueue.Type type : EventQueue.Type.values()) {
+            checkQueue(type, nbEvents, true, false);
+            checkQueue(type, nbEvents, false, false);
+        }
+        for (final EventQueue.Type type : EventQueue.Type.values()) {
+            checkQueue(type, nbEvents, true, true);
+            checkQueue(type, nbEvents, false, true);
+        }
+    }
+
+    /**
+     * Alterne ajoûts et retraits puis vide la file, en comparant chaque date
+     * retirée à celle d'une PriorityQueue de référence.
+     * 
+     * @param type
+     * @param nbEvents
+     * @param monotone dates proches et presque croissantes, comme celles d'une
+     *                 suite de déplacements
+     * @param print    affiche le temps passé dans la file
+     */
+    private static void checkQueue(final EventQueue.Type type, final int nbEvents, final boolean monotone,
+            final boolean print) {
+        final Random random = new Random(42);
+        final EventQueue queue = EventQueue.create(type);
+        final PriorityQueue<Long> reference = new PriorityQueue<Long>();
+
+        boolean ok = true;
+        long elapsed = 0;
+        long lastPolled = 0;
+        for (int i = 0; i < nbEvents; i++) {
+            final long date = monotone ? lastPolled + random.nextInt(5000) : random.nextInt(1_000_000);
+            reference.add(date);
+            long start = System.nanoTime();
+            queue.add(new Event(date, null));
+            elapsed += System.nanoTime() - start;
+
+            if (random.nextInt(3) == 0) {
+                start = System.nanoTime();
+                final Event event = queue.poll();
+                elapsed += System.nanoTime() - start;
+                lastPolled = event.getDate();
+                ok &= (lastPolled == reference.poll());
+            }
+        }
+        while (!reference.isEmpty()) {
+            final long start = System.nanoTime();
+            final Event event = queue.poll();
+            elapsed += System.nanoTime() - start;
+            ok &= (event != null && event.getDate() == reference.poll());
+        }
+        ok &= queue.isEmpty();
+
+        if (!print && ok)
+            return;
+        System.out.println(type + (monotone ? " (presque croissant)" : " (aléatoire)") + ": " + (elapsed / 1_000_000)
+                + " ms, " + (ok ? "OK" : "KO"));
+    }
+}
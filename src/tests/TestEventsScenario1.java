@@ -20,8 +20,8 @@ public class TestEventsScenario1 implements InterfaceDonneesSimulation {
         final EventManager eventManager = new EventManager(donneesSimulation);
 
         final int guiSizeFactor = 80; // à adapter à son écran, spiral: 20, others: 60
-        final GUISimulator gui = new GUISimulator(donneesSimulation.getCarte().getNbLignes() * guiSizeFactor,
-                donneesSimulation.getCarte().getNbColonnes() * guiSizeFactor, Color.BLACK);
+        final GUISimulator gui = new GUISimulator(donneesSimulation.getCarte().getNbColonnes() * guiSizeFactor,
+                donneesSimulation.getCarte().getNbLignes() * guiSizeFactor, Color.BLACK);
         final GraphicsComponent graphicsComponent = new GraphicsComponent(gui, guiSizeFactor, donneesSimulation);
 
         final Simulateur simulateur = new Simulateur(graphicsComponent, donneesSimulation, eventManager);
@@ -0,0 +1,96 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import game.Carte;
+import game.FireIndex;
+import game.NatureTerrain;
+
+/**
+ * Compare les requêtes de FireIndex (k plus proches, rayon) à un parcours de
+ * tous les incendies, en ajoutant et retirant des incendies au hasard.
+ */
+public class TestFireIndex {
+    private static final int NB_OPERATIONS = 2000;
+
+    public static void main(String[] args) {
+        final int[][] dimensions = {{1, 1}, {8, 8}, {20, 20}, {37, 53}, {100, 100}};
+        final int[] bucketSizes = {1, 3, FireIndex.DEFAULT_BUCKET_SIZE};
+        int erreurs = 0;
+        for (final int[] dimension : dimensions) {
+            for (final int bucketSize : bucketSizes) {
+                erreurs += compare(new Carte(dimension[0], dimension[1], 10000,
+                        new HashMap<Integer, NatureTerrain>()), bucketSize);
+            }
+        }
+        System.out.println("erreurs " + erreurs);
+    }
+
+    private static int compare(final Carte carte, final int bucketSize) {
+        final int nbColonnes = carte.getNbColonnes();
+        final int nbCells = carte.getNbLignes() * nbColonnes;
+        final FireIndex fireIndex = new FireIndex(carte, bucketSize);
+        final ArrayList<Integer> incendies = new ArrayList<Integer>();
+        final Random random = new Random(0);
+        int erreurs = 0;
+        for (int i = 0; i < NB_OPERATIONS; i++) {
+            final int position = random.nextInt(nbCells);
+            if (random.nextInt(3) == 0) {
+                if (fireIndex.remove(position) != incendies.remove(Integer.valueOf(position))) {
+                    erreurs++;
+                }
+            } else if (fireIndex.add(position) != !incendies.contains(position)) {
+                erreurs++;
+            } else if (!incendies.contains(position)) {
+                incendies.add(position);
+            }
+
+            final int query = random.nextInt(nbCells);
+            // tri par distance puis par position
+            final Integer[] tries = incendies.toArray(new Integer[0]);
+            Arrays.sort(tries, (a, b) -> {
+                final int da = getManhattan(query, a, nbColonnes);
+                final int db = getManhattan(query, b, nbColonnes);
+                return (da != db) ? Integer.compare(da, db) : Integer.compare(a, b);
+            });
+
+            final int k = 1 + random.nextInt(5);
+            final int[] attendus = new int[Math.min(k, tries.length)];
+            for (int j = 0; j < attendus.length; j++) {
+                attendus[j] = tries[j];
+            }
+            if (!Arrays.equals(fireIndex.nearest(query, k), attendus)) {
+                erreurs++;
+                System.out.println("Erreur nearest(" + query + ", " + k + "): "
+                        + Arrays.toString(fireIndex.nearest(query, k)) + " au lieu de " + Arrays.toString(attendus));
+            }
+
+            final int radius = random.nextInt(10);
+            final int[] dansRayon = Arrays.stream(tries)
+                    .filter(fire -> getManhattan(query, fire, nbColonnes) <= radius).mapToInt(Integer::intValue)
+                    .toArray();
+            if (!Arrays.equals(fireIndex.inRadius(query, radius), dansRayon)) {
+                erreurs++;
+                System.out.println("Erreur inRadius(" + query + ", " + radius + ")");
+            }
+
+            if (fireIndex.size() != incendies.size()) {
+                erreurs++;
+            }
+        }
+        final int[] attendus = incendies.stream().mapToInt(Integer::intValue).sorted().toArray();
+        if (!Arrays.equals(fireIndex.toArray(), attendus)) {
+            erreurs++;
+        }
+        System.out.println(carte.getNbLignes() + "x" + nbColonnes + ", seaux de " + bucketSize + ": "
+                + fireIndex.size() + " incendies, erreurs " + erreurs);
+        return erreurs;
+    }
+
+    private static int getManhattan(final int a, final int b, final int nbColonnes) {
+        return Math.abs(a / nbColonnes - b / nbColonnes) + Math.abs(a % nbColonnes - b % nbColonnes);
+    }
+}
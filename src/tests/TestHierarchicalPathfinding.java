@@ -0,0 +1,112 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.pathfinding.AStar;
+import game.pathfinding.HierarchicalPathfinding;
+import game.robots.MyRobotTypes;
+import game.robots.Robot;
+
+/**
+ * Compare les chemins de HierarchicalPathfinding et de AStar: mêmes
+ * destinations atteignables, chemins valides, surcoût et temps de calcul.
+ */
+public class TestHierarchicalPathfinding {
+    private static final int NB_REQUETES = 100;
+
+    public static void main(String[] args) {
+        final String[] cartes = {"cartes/carteSujet.map", "cartes/mushroomOfHell-20x20.map",
+                "cartes/spiralOfMadness-50x50.map"};
+        for (final String carte : cartes) {
+            compare(carte, InterfaceDonneesSimulation.getDonneesSimulation(new String[]{carte}));
+        }
+        compare("carte aléatoire 400x400", getCarteLacs(400));
+    }
+
+    /**
+     * @param taille
+     * @return carte avec 20% de rochers et des lacs, un robot à roues et un robot
+     *         à chenilles
+     * @see InterfaceDonneesSimulation#getCarteAleatoire(Random, int, int, double,
+     *      double, game.robots.RobotType...)
+     */
+    private static DonneesSimulation getCarteLacs(final int taille) {
+        final Random random = new Random(1);
+        final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation.getCarteAleatoire(random, taille,
+                100, 0.2, 0.2, MyRobotTypes.getRoues(), MyRobotTypes.getChenilles());
+        final Carte carte = donneesSimulation.getCarte();
+        for (int lac = 0; lac < taille / 4; lac++) {
+            final int ligne = random.nextInt(taille - 10);
+            final int colonne = random.nextInt(taille - 10);
+            for (int i = 0; i < 10; i++) {
+                for (int j = 0; j < 10; j++) {
+                    carte.setTerrain((ligne + i) * taille + colonne + j, NatureTerrain.EAU);
+                }
+            }
+        }
+        return donneesSimulation;
+    }
+
+    private static void compare(final String nom, final DonneesSimulation donneesSimulation) {
+        final AStar aStar = new AStar(donneesSimulation);
+        final HierarchicalPathfinding hierarchical = new HierarchicalPathfinding(donneesSimulation);
+        final Carte carte = donneesSimulation.getCarte();
+        final int nbCells = carte.getNbLignes() * carte.getNbColonnes();
+        final Random random = new Random(0);
+
+        final ArrayList<Robot> robots = new ArrayList<Robot>();
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+        for (final Robot robot : robots) {
+            // construction du graphe abstrait
+            long start = System.nanoTime();
+            try {
+                hierarchical.shortestWay(robot, 0, 0);
+            } catch (final IllegalStateException e) {
+            }
+            final long dureeConstruction = System.nanoTime() - start;
+
+            int erreurs = 0;
+            long coutTotalAStar = 0;
+            long coutTotal = 0;
+            long dureeAStar = 0;
+            long duree = 0;
+            long explores = 0;
+            for (int i = 0; i < NB_REQUETES; i++) {
+                final int src = random.nextInt(nbCells);
+                final int dest = random.nextInt(nbCells);
+                long coutAStar = -1;
+                long cout = -1;
+                start = System.nanoTime();
+                try {
+                    coutAStar = aStar.shortestWay(robot, src, dest).getDuration();
+                } catch (final IllegalStateException e) {
+                }
+                dureeAStar += System.nanoTime() - start;
+                start = System.nanoTime();
+                try {
+                    cout = hierarchical.shortestWay(robot, src, dest).getDuration();
+                } catch (final IllegalStateException e) {
+                }
+                duree += System.nanoTime() - start;
+                // une requête rejetée n'explore aucun nœud
+                explores += hierarchical.getExpandedNodes();
+                if ((coutAStar < 0) != (cout < 0) || cout == Long.MAX_VALUE || cout < coutAStar
+                        || (cout < 0 && hierarchical.getExpandedNodes() != 0)) {
+                    erreurs++;
+                    System.out.println("Erreur " + src + " -> " + dest + ": A* " + coutAStar + ", HPA* " + cout);
+                } else if (cout >= 0) {
+                    coutTotalAStar += coutAStar;
+                    coutTotal += cout;
+                }
+            }
+            System.out.println(nom + ", " + robot.getType() + ": erreurs " + erreurs + ", surcoût "
+                    + String.format("%.2f%%", 100.0 * (coutTotal - coutTotalAStar) / Math.max(1, coutTotalAStar))
+                    + ", construction " + dureeConstruction / 1_000_000 + " ms, A* " + dureeAStar / 1_000_000
+                    + " ms, HPA* " + duree / 1_000_000 + " ms, nœuds abstraits explorés " + explores);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.pathfinding.AStar;
+import game.pathfinding.CostGrid;
+import game.pathfinding.JumpPointSearch;
+import game.robots.MyRobotTypes;
+import game.robots.Robot;
+
+/**
+ * Compare les chemins de JumpPointSearch et de AStar: même coût, chemins
+ * valides, et nombre de positions explorées.
+ */
+public class TestJumpPointSearch {
+    private static final int NB_REQUETES = 200;
+
+    public static void main(String[] args) {
+        final String[] cartes = {"cartes/carteSujet.map", "cartes/desertOfDeath-20x20.map",
+                "cartes/mushroomOfHell-20x20.map", "cartes/spiralOfMadness-50x50.map"};
+        for (final String carte : cartes) {
+            compare(carte, InterfaceDonneesSimulation.getDonneesSimulation(new String[]{carte}));
+        }
+        compare("carte ouverte 100x100", getCarteOuverte(100));
+    }
+
+    /**
+     * @param taille
+     * @return données d'une carte sans obstacle avec un drone et un robot à roues
+     */
+    private static DonneesSimulation getCarteOuverte(final int taille) {
+        final Map<Integer, NatureTerrain> map = new HashMap<Integer, NatureTerrain>();
+        for (int position = 0; position < taille * taille; position++) {
+            map.put(position, NatureTerrain.TERRAIN_LIBRE);
+        }
+        final DonneesSimulation donneesSimulation = new DonneesSimulation();
+        donneesSimulation.setCarte(new Carte(taille, taille, 10000, map));
+        donneesSimulation.setIncendies(new HashMap<Integer, Integer>());
+        final Map<Integer, ArrayList<Robot>> robots = new HashMap<Integer, ArrayList<Robot>>();
+        robots.computeIfAbsent(0, k -> new ArrayList<Robot>()).add(MyRobotTypes.getDrone().newRobot(0));
+        robots.computeIfAbsent(0, k -> new ArrayList<Robot>()).add(MyRobotTypes.getRoues().newRobot(0));
+        donneesSimulation.setRobots(robots);
+        return donneesSimulation;
+    }
+
+    private static void compare(final String nom, final DonneesSimulation donneesSimulation) {
+        final AStar aStar = new AStar(donneesSimulation);
+        final JumpPointSearch jumpPointSearch = new JumpPointSearch(donneesSimulation);
+        final Carte carte = donneesSimulation.getCarte();
+        final int nbCells = carte.getNbLignes() * carte.getNbColonnes();
+        final Random random = new Random(0);
+
+        final ArrayList<Robot> robots = new ArrayList<Robot>();
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+        for (final Robot robot : robots) {
+            final CostGrid costGrid = CostGrid.get(carte, robot);
+            int erreurs = 0;
+            long expandedAStar = 0;
+            long expandedJps = 0;
+            for (int i = 0; i < NB_REQUETES; i++) {
+                final int src = random.nextInt(nbCells);
+                final int dest = random.nextInt(nbCells);
+                long coutAStar = -1;
+                long coutJps = -1;
+                try {
+                    coutAStar = aStar.shortestWay(robot, src, dest).getDuration();
+                    expandedAStar += aStar.getExpandedNodes();
+                } catch (final IllegalStateException e) {
+                }
+                try {
+                    coutJps = jumpPointSearch.shortestWay(robot, src, dest).getDuration();
+                    expandedJps += jumpPointSearch.getExpandedNodes();
+                } catch (final IllegalStateException e) {
+                }
+                if (coutAStar != coutJps) {
+                    erreurs++;
+                    System.out.println("Erreur " + src + " -> " + dest + ": A* " + coutAStar + ", JPS " + coutJps);
+                }
+            }
+            System.out.println(nom + ", " + robot.getType() + (costGrid.isUniform() ? " (uniforme)" : "")
+                    + ": erreurs " + erreurs + ", positions explorées A* " + expandedAStar + ", JPS " + expandedJps);
+        }
+    }
+}
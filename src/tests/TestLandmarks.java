@@ -0,0 +1,68 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.pathfinding.AStar;
+import game.robots.MyRobotTypes;
+import game.robots.Robot;
+
+/**
+ * Compare A* guidé par l'heuristique ALT, par la distance de Manhattan
+ * multipliée par le plus petit coût et par la distance de Manhattan en nombre
+ * de cases: mêmes coûts, nombre de positions explorées.
+ */
+public class TestLandmarks {
+    private static final int NB_REQUETES = 100;
+
+    public static void main(String[] args) {
+        final String[] cartes = {"cartes/carteSujet.map", "cartes/mushroomOfHell-20x20.map",
+                "cartes/spiralOfMadness-50x50.map"};
+        for (final String carte : cartes) {
+            compare(carte, InterfaceDonneesSimulation.getDonneesSimulation(new String[]{carte}));
+        }
+        compare("carte aléatoire 200x200", InterfaceDonneesSimulation.getCarteAleatoire(new Random(1), 200, 10000,
+                0.2, 0.3, MyRobotTypes.getChenilles(), MyRobotTypes.getPattes()));
+    }
+
+    private static void compare(final String nom, final DonneesSimulation donneesSimulation) {
+        final AStar alt = new AStar(donneesSimulation);
+        final AStar manhattan = new AStar(donneesSimulation,
+                costGrid -> (src, dest) -> costGrid.getMinCost() * costGrid.getManhattan(src, dest));
+        final AStar cases = new AStar(donneesSimulation, costGrid -> costGrid::getManhattan);
+        final AStar[] algorithmes = {alt, manhattan, cases};
+
+        final Carte carte = donneesSimulation.getCarte();
+        final int nbCells = carte.getNbLignes() * carte.getNbColonnes();
+        final Random random = new Random(0);
+
+        final ArrayList<Robot> robots = new ArrayList<Robot>();
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+        for (final Robot robot : robots) {
+            int erreurs = 0;
+            final long[] expanded = new long[algorithmes.length];
+            for (int i = 0; i < NB_REQUETES; i++) {
+                final int src = random.nextInt(nbCells);
+                final int dest = random.nextInt(nbCells);
+                final long[] couts = new long[algorithmes.length];
+                for (int a = 0; a < algorithmes.length; a++) {
+                    try {
+                        couts[a] = algorithmes[a].shortestWay(robot, src, dest).getDuration();
+                    } catch (final IllegalStateException e) {
+                        couts[a] = -1;
+                    }
+                    expanded[a] += algorithmes[a].getExpandedNodes();
+                }
+                if (couts[0] != couts[1] || couts[0] != couts[2]) {
+                    erreurs++;
+                    System.out.println("Erreur " + src + " -> " + dest + ": ALT " + couts[0] + ", Manhattan "
+                            + couts[1] + ", cases " + couts[2]);
+                }
+            }
+            System.out.println(nom + ", " + robot.getType() + ": erreurs " + erreurs + ", positions explorées ALT "
+                    + expanded[0] + ", Manhattan " + expanded[1] + ", cases " + expanded[2]);
+        }
+    }
+}
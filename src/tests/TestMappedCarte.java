@@ -0,0 +1,171 @@
+package tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.MappedTerrainStorage;
+import game.NatureTerrain;
+import game.pathfinding.AStar;
+import game.pathfinding.Path;
+import game.robots.Robot;
+import io.LecteurDonnees;
+
+/**
+ * Compare une carte non carrée stockée dans un fichier projeté en mémoire à la
+ * même carte gardée dans le tas: terrains, voisines, persistance du fichier
+ * après réouverture. Lit ensuite une carte non carrée avec LecteurDonnees, avec
+ * et sans fichier de terrain, et vérifie les positions et un plus court chemin.
+ */
+public class TestMappedCarte {
+    private static final int NB_LIGNES = 300;
+    private static final int NB_COLONNES = 700;
+    private static final int CACHE_SIZE = 8;
+
+    public static void main(String[] args) throws IOException, DataFormatException {
+        int erreurs = 0;
+        final Random random = new Random(0);
+        final NatureTerrain[] natures = NatureTerrain.values();
+        final File fichier = File.createTempFile("terrain", ".bin");
+        fichier.deleteOnExit();
+        fichier.delete();
+
+        final Carte tas = new Carte(NB_LIGNES, NB_COLONNES, 100);
+        MappedTerrainStorage storage = new MappedTerrainStorage(fichier, NB_LIGNES, NB_COLONNES, CACHE_SIZE);
+        Carte projetee = new Carte(NB_LIGNES, NB_COLONNES, 100, storage);
+        for (int position = 0; position < NB_LIGNES * NB_COLONNES; position++) {
+            final NatureTerrain nature = natures[random.nextInt(natures.length)];
+            tas.setTerrain(position, nature);
+            projetee.setTerrain(position, nature);
+        }
+        erreurs += compare(tas, projetee);
+        System.out.println("Tuiles chargées: " + storage.getNbLoads() + ", taille du fichier " + fichier.length()
+                + " octets");
+        storage.close();
+
+        // le fichier déjà écrit est réutilisé sans conversion
+        storage = new MappedTerrainStorage(fichier, NB_LIGNES, NB_COLONNES, CACHE_SIZE);
+        projetee = new Carte(NB_LIGNES, NB_COLONNES, 100, storage);
+        erreurs += compare(tas, projetee);
+        storage.close();
+
+        try {
+            new MappedTerrainStorage(fichier, NB_LIGNES + 100, NB_COLONNES).close();
+            erreurs++;
+        } catch (final IOException e) {
+            // dimensions différentes
+        }
+
+        erreurs += grandeCarte();
+        erreurs += lireCarteNonCarree();
+        System.out.println("erreurs " + erreurs);
+    }
+
+    /**
+     * @param attendue
+     * @param carte
+     * @return nombre de positions dont le terrain ou les voisines diffèrent
+     */
+    private static int compare(final Carte attendue, final Carte carte) {
+        int erreurs = 0;
+        if (carte.getMap().size() != attendue.getMap().size()) {
+            erreurs++;
+        }
+        for (int position = 0; position < NB_LIGNES * NB_COLONNES; position++) {
+            if (carte.getTerrain(position) != attendue.getTerrain(position)
+                    || !carte.getNeighbors(position).equals(attendue.getNeighbors(position))
+                    || carte.existTerrainVoisin(position, NatureTerrain.EAU) != attendue
+                            .existTerrainVoisin(position, NatureTerrain.EAU)) {
+                erreurs++;
+            }
+        }
+        if (!carte.getPositionsVoisinsWater().equals(attendue.getPositionsVoisinsWater())) {
+            erreurs++;
+        }
+        System.out.println("Carte " + NB_LIGNES + "x" + NB_COLONNES + " projetée: erreurs " + erreurs);
+        return erreurs;
+    }
+
+    /**
+     * Carte trop grande pour que son adjacence soit précalculée: les voisines
+     * sont calculées à la demande
+     *
+     * @return nombre d'erreurs
+     */
+    private static int grandeCarte() throws IOException {
+        final int nbLignes = 1500;
+        final int nbColonnes = 3000;
+        final File fichier = File.createTempFile("grande", ".bin");
+        fichier.deleteOnExit();
+        fichier.delete();
+        int erreurs = 0;
+        try (final MappedTerrainStorage storage = new MappedTerrainStorage(fichier, nbLignes, nbColonnes)) {
+            final Carte carte = new Carte(nbLignes, nbColonnes, 100, storage);
+            final int centre = 700 * nbColonnes + 2000;
+            carte.setTerrain(centre + 1, NatureTerrain.EAU);
+            if (carte.getNbNeighbors(0) != 2 || carte.getNbNeighbors(centre) != 4
+                    || !carte.getNeighbors(centre).equals(Arrays.asList(centre + 1, centre - nbColonnes,
+                            centre + nbColonnes, centre - 1))
+                    || !carte.existTerrainVoisin(centre, NatureTerrain.EAU)
+                    || carte.existTerrainVoisin(centre + 1, NatureTerrain.EAU)
+                    || carte.getMap().size() != 1) {
+                erreurs++;
+            }
+            System.out.println("Carte " + nbLignes + "x" + nbColonnes + " projetée: erreurs " + erreurs
+                    + ", tuiles chargées " + storage.getNbLoads());
+        }
+        return erreurs;
+    }
+
+    /**
+     * Carte de 3 lignes et 6 colonnes, traversée par un mur de roche percé en
+     * (2, 3)
+     *
+     * @return nombre d'erreurs
+     */
+    private static int lireCarteNonCarree() throws IOException, DataFormatException {
+        final File carte = File.createTempFile("carte", ".map");
+        carte.deleteOnExit();
+        try (final PrintWriter writer = new PrintWriter(carte, "UTF-8")) {
+            writer.println("3 6 100");
+            final String[] lignes = { "LLLRLL", "LLLREL", "LLLLLL" };
+            for (final String ligne : lignes) {
+                for (final char c : ligne.toCharArray()) {
+                    writer.println((c == 'R') ? "ROCHE" : (c == 'E') ? "EAU" : "TERRAIN_LIBRE");
+                }
+            }
+            writer.println("1");
+            writer.println("0 5 1000");
+            writer.println("1");
+            writer.println("0 0 ROUES");
+        }
+        final File fichierTerrain = File.createTempFile("terrain", ".bin");
+        fichierTerrain.deleteOnExit();
+        fichierTerrain.delete();
+
+        int erreurs = 0;
+        for (final File stockage : new File[] { null, fichierTerrain }) {
+            final DonneesSimulation donneesSimulation = LecteurDonnees.lire(carte.getPath(), stockage);
+            final Carte c = donneesSimulation.getCarte();
+            // positions ligne * nbColonnes + colonne
+            if (c.getTerrain(3) != NatureTerrain.ROCHE || c.getTerrain(6 + 4) != NatureTerrain.EAU
+                    || c.getTerrain(2 * 6 + 5) != NatureTerrain.TERRAIN_LIBRE
+                    || !donneesSimulation.getIncendies().containsKey(5)) {
+                erreurs++;
+            }
+            final Robot robot = donneesSimulation.getRobots().get(0).get(0);
+            final Path path = new AStar(donneesSimulation).shortestWay(robot, 0, 5);
+            // le robot à roues contourne le mur par la dernière ligne
+            if (path.getNbSteps() != 9 || !path.toString().contains("15")) {
+                erreurs++;
+            }
+            System.out.println("Carte 3x6 " + ((stockage == null) ? "en mémoire" : "projetée") + ": " + path);
+        }
+        return erreurs;
+    }
+}
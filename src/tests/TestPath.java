@@ -0,0 +1,127 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.pathfinding.AStar;
+import game.pathfinding.CostGrid;
+import game.pathfinding.DStarLite;
+import game.pathfinding.DistanceField;
+import game.pathfinding.HierarchicalPathfinding;
+import game.pathfinding.JumpPointSearch;
+import game.pathfinding.Path;
+import game.pathfinding.Pathfinding;
+import game.robots.MyRobotTypes;
+import game.robots.Robot;
+
+/**
+ * Vérifie la représentation compacte des chemins: positions relues par
+ * l'itérateur, arrivée, nombre de pas et durée précalculée. Les chemins d'un
+ * bout à l'autre d'une carte d'une seule colonne ou d'une seule ligne doivent
+ * être trouvés par chaque algorithme.
+ */
+public class TestPath {
+    private static final int NB_REQUETES = 200;
+
+    public static void main(String[] args) {
+        args = new String[]{"cartes/spiralOfMadness-50x50.map"};
+        final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation.getDonneesSimulation(args);
+        final AStar aStar = new AStar(donneesSimulation);
+        final Carte carte = donneesSimulation.getCarte();
+        final int nbCells = carte.getNbLignes() * carte.getNbColonnes();
+        final Random random = new Random(0);
+
+        final Robot robot = donneesSimulation.getRobot(0);
+        final CostGrid costGrid = CostGrid.get(carte, robot);
+        int erreurs = 0;
+        int plusLong = 0;
+        for (int i = 0; i < NB_REQUETES; i++) {
+            final Path path;
+            try {
+                path = aStar.shortestWay(robot, random.nextInt(nbCells), random.nextInt(nbCells));
+            } catch (final IllegalStateException e) {
+                continue;
+            }
+            final int[] positions = path.toArray();
+
+            // reconstruction à partir des positions
+            final Path.Builder builder = new Path.Builder(costGrid);
+            Arrays.stream(positions).forEach(builder::add);
+            final Path copie = builder.build();
+
+            long duree = 0;
+            for (int step = 0; step < path.getNbSteps(); step++) {
+                duree += costGrid.getCost(positions[step], path.getDirection(step));
+            }
+            if (positions.length != path.size() || positions[positions.length - 1] != path.getLast()
+                    || duree != path.getDuration() || !Arrays.equals(positions, copie.toArray())
+                    || copie.getDuration() != path.getDuration()) {
+                erreurs++;
+                System.out.println("Erreur: " + path);
+            }
+            plusLong = Math.max(plusLong, path.getNbSteps());
+        }
+        System.out.println("erreurs " + erreurs + ", plus long chemin " + plusLong + " pas");
+
+        erreurs = testCarteEtroite(5, 1) + testCarteEtroite(1, 5);
+        System.out.println("cartes d'une colonne et d'une ligne: erreurs " + erreurs);
+    }
+
+    /**
+     * @param nbLignes
+     * @param nbColonnes
+     * @return nombre d'algorithmes qui ne trouvent pas le chemin entre les deux
+     *         extrémités de la carte, dans un sens ou dans l'autre
+     */
+    private static int testCarteEtroite(final int nbLignes, final int nbColonnes) {
+        final int nbCells = nbLignes * nbColonnes;
+        final Map<Integer, NatureTerrain> map = new HashMap<Integer, NatureTerrain>();
+        for (int position = 0; position < nbCells; position++) {
+            map.put(position, NatureTerrain.TERRAIN_LIBRE);
+        }
+        final DonneesSimulation donneesSimulation = new DonneesSimulation();
+        donneesSimulation.setCarte(new Carte(nbLignes, nbColonnes, 100, map));
+        donneesSimulation.setIncendies(new HashMap<Integer, Integer>());
+        final Robot robot = MyRobotTypes.getRoues().newRobot(0);
+        final Map<Integer, ArrayList<Robot>> robots = new HashMap<Integer, ArrayList<Robot>>();
+        robots.computeIfAbsent(0, k -> new ArrayList<Robot>()).add(robot);
+        donneesSimulation.setRobots(robots);
+        final CostGrid costGrid = CostGrid.get(donneesSimulation.getCarte(), robot);
+
+        final Pathfinding[] algorithmes = {new AStar(donneesSimulation), new JumpPointSearch(donneesSimulation),
+                new DStarLite(donneesSimulation), new HierarchicalPathfinding(donneesSimulation)};
+        final int[][] trajets = {{0, nbCells - 1}, {nbCells - 1, 0}};
+        int erreurs = 0;
+        for (final int[] trajet : trajets) {
+            final long duree = (long) (nbCells - 1) * costGrid.getUniformCost();
+            for (final Pathfinding algorithme : algorithmes) {
+                try {
+                    if (algorithme.shortestWay(robot, trajet[0], trajet[1]).getDuration() != duree) {
+                        erreurs++;
+                    }
+                } catch (final IllegalArgumentException | IllegalStateException e) {
+                    erreurs++;
+                    System.out.println("Erreur " + nbLignes + "x" + nbColonnes + ", "
+                            + algorithme.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+            }
+            try {
+                final DistanceField field = new DistanceField(costGrid, Collections.singleton(trajet[1]));
+                if (field.getPath(trajet[0]).getDuration() != duree) {
+                    erreurs++;
+                }
+            } catch (final IllegalArgumentException e) {
+                erreurs++;
+                System.out.println("Erreur " + nbLignes + "x" + nbColonnes + ", DistanceField: " + e.getMessage());
+            }
+        }
+        return erreurs;
+    }
+}
@@ -1,10 +1,10 @@
 package tests;
 
 import java.util.Iterator;
-import java.util.LinkedList;
 
 import game.DonneesSimulation;
 import game.pathfinding.AStar;
+import game.pathfinding.Path;
 import game.pathfinding.Pathfinding;
 import game.robots.Robot;
 
@@ -16,14 +16,14 @@ public class TestPathfinding {
 
         /* Calcul du plus court chemin (robot, src, dest) */
         final Robot robot = donneesSimulation.getRobot(0);
-        final LinkedList<Integer> path = pathfinding.shortestWay(robot, robot.getPosition(), 3);
+        final Path path = pathfinding.shortestWay(robot, robot.getPosition(), 3);
 
         /* Affichage du path */
         System.out.println("Affichage du chemin:");
         final Iterator<Integer> iter = path.iterator();
         while (iter.hasNext()) {
             final Integer element = iter.next();
-            System.out.println("(" + String.valueOf(element / donneesSimulation.getCarte().getNbColonnes()) + "," + String.valueOf(element % donneesSimulation.getCarte().getNbLignes()) + ")");
+            System.out.println("(" + String.valueOf(element / donneesSimulation.getCarte().getNbColonnes()) + "," + String.valueOf(element % donneesSimulation.getCarte().getNbColonnes()) + ")");
         }
     }
 }
@@ -1,11 +1,11 @@
 package tests;
 
 import java.awt.Color;
-import java.util.Iterator;
-import java.util.LinkedList;
 
 import game.DonneesSimulation;
 import game.pathfinding.AStar;
+import game.pathfinding.CostGrid;
+import game.pathfinding.Path;
 import game.pathfinding.Pathfinding;
 import game.Simulateur;
 import game.events.ActionMove;
@@ -22,15 +22,15 @@ public class TestPathfindingGUI {
         final Pathfinding pathfinding = new AStar(donneesSimulation);
 
         final int guiSizeFactor = 80; // à adapter à son écran, spiral: 20, others: 60
-        final GUISimulator gui = new GUISimulator(donneesSimulation.getCarte().getNbLignes() * guiSizeFactor,
-                donneesSimulation.getCarte().getNbColonnes() * guiSizeFactor, Color.BLACK);
+        final GUISimulator gui = new GUISimulator(donneesSimulation.getCarte().getNbColonnes() * guiSizeFactor,
+                donneesSimulation.getCarte().getNbLignes() * guiSizeFactor, Color.BLACK);
         final GraphicsComponent graphicsComponent = new GraphicsComponent(gui, guiSizeFactor, donneesSimulation);
 
         final Simulateur simulateur = new Simulateur(graphicsComponent, donneesSimulation, eventManager);
 
         /* Calcul du plus court chemin entre (src, dest) */
         final Robot robot = donneesSimulation.getRobot(0);
-        final LinkedList<Integer> path = pathfinding.shortestWay(robot, robot.getPosition(), 7);
+        final Path path = pathfinding.shortestWay(robot, robot.getPosition(), 7);
 
         /* Affichage du path */
         System.out.println("Affichage du chemin:");
@@ -38,16 +38,15 @@ public class TestPathfindingGUI {
         long date = 0;
         final long increment = Simulateur.INCREMENT;
 
-        final Iterator<Integer> iter = path.iterator();
-
-        int currentPosition = iter.next();
+        int currentPosition = path.getStart();
         System.out.println("(" + String.valueOf(currentPosition / donneesSimulation.getCarte().getNbColonnes()) + ","
-                + String.valueOf(currentPosition % donneesSimulation.getCarte().getNbLignes()) + ")");
-        while (iter.hasNext()) {
-            final int nextPosition = iter.next();
-            simulateur.schedule(date, new ActionMove(donneesSimulation, robot, donneesSimulation.getCarte().getDirection(currentPosition, nextPosition)));
+                + String.valueOf(currentPosition % donneesSimulation.getCarte().getNbColonnes()) + ")");
+        for (int step = 0; step < path.getNbSteps(); step++) {
+            final int direction = path.getDirection(step);
+            final int nextPosition = path.getCostGrid().getVoisin(currentPosition, direction);
+            simulateur.schedule(date, new ActionMove(donneesSimulation, robot, CostGrid.DIRECTIONS[direction]));
             date += increment;
-            System.out.println("(" + String.valueOf(nextPosition / donneesSimulation.getCarte().getNbColonnes()) + "," + String.valueOf(nextPosition % donneesSimulation.getCarte().getNbLignes()) + ")");
+            System.out.println("(" + String.valueOf(nextPosition / donneesSimulation.getCarte().getNbColonnes()) + "," + String.valueOf(nextPosition % donneesSimulation.getCarte().getNbColonnes()) + ")");
             currentPosition = nextPosition;
         }
     }
@@ -0,0 +1,107 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.NatureTerrain;
+import game.pathfinding.AStar;
+import game.pathfinding.CostGrid;
+import game.pathfinding.DistanceField;
+import game.pathfinding.ReachabilityComponents;
+import game.robots.MyRobotTypes;
+import game.robots.Robot;
+
+/**
+ * Compare les composantes de chaque type de robot à l'atteignabilité donnée par
+ * un champ de distance, sur une carte aléatoire avec de l'eau et des rochers.
+ * Une requête sans chemin doit être rejetée par A* sans explorer de position,
+ * de même pour la recherche de la cible la plus proche.
+ */
+public class TestReachabilityComponents {
+    private static final int TAILLE = 150;
+    private static final int NB_SOURCES = 20;
+    private static final int NB_REQUETES = 200;
+
+    public static void main(String[] args) {
+        final Random random = new Random(2);
+        final Map<Integer, NatureTerrain> map = new HashMap<Integer, NatureTerrain>();
+        for (int position = 0; position < TAILLE * TAILLE; position++) {
+            final double tirage = random.nextDouble();
+            map.put(position, (tirage < 0.25) ? NatureTerrain.EAU
+                    : (tirage < 0.4) ? NatureTerrain.ROCHE
+                            : (tirage < 0.6) ? NatureTerrain.FORET : NatureTerrain.TERRAIN_LIBRE);
+        }
+        final Carte carte = new Carte(TAILLE, TAILLE, 100, map);
+        final DonneesSimulation donneesSimulation = new DonneesSimulation();
+        donneesSimulation.setCarte(carte);
+        donneesSimulation.setIncendies(new HashMap<Integer, Integer>());
+        final AStar aStar = new AStar(donneesSimulation);
+        final Robot[] robots = {MyRobotTypes.getDrone().newRobot(0), MyRobotTypes.getRoues().newRobot(0),
+                MyRobotTypes.getChenilles().newRobot(0), MyRobotTypes.getPattes().newRobot(0)};
+
+        int erreurs = 0;
+        for (final Robot robot : robots) {
+            final CostGrid costGrid = CostGrid.get(carte, robot);
+            final long start = System.nanoTime();
+            final ReachabilityComponents components = ReachabilityComponents.get(carte, robot);
+            final long duree = System.nanoTime() - start;
+            if (ReachabilityComponents.get(carte, robot) != components) {
+                erreurs++;
+            }
+
+            int erreursRobot = 0;
+            for (int i = 0; i < NB_SOURCES; i++) {
+                final int src = random.nextInt(TAILLE * TAILLE);
+                final DistanceField field = new DistanceField(costGrid, Collections.singleton(src));
+                for (int position = 0; position < TAILLE * TAILLE; position++) {
+                    if (position != src && components.isConnected(src, position) != field.isReachable(position)) {
+                        erreursRobot++;
+                    }
+                }
+            }
+
+            int rejets = 0;
+            long exploreesRejets = 0;
+            final ArrayList<Integer> cibles = new ArrayList<Integer>();
+            for (int i = 0; i < NB_REQUETES; i++) {
+                final int src = random.nextInt(TAILLE * TAILLE);
+                final int dest = random.nextInt(TAILLE * TAILLE);
+                cibles.add(dest);
+                try {
+                    aStar.shortestWay(robot, src, dest);
+                    erreursRobot += components.isConnected(src, dest) ? 0 : 1;
+                } catch (final IllegalStateException e) {
+                    erreursRobot += components.isConnected(src, dest) ? 1 : 0;
+                    rejets++;
+                    exploreesRejets += aStar.getExpandedNodes();
+                }
+            }
+            if (exploreesRejets != 0) {
+                erreursRobot++;
+            }
+
+            // les cibles d'une autre composante sont ignorées
+            final int src = random.nextInt(TAILLE * TAILLE);
+            final boolean atteignable = cibles.stream().anyMatch(cible -> components.isConnected(src, cible));
+            try {
+                final int cible = aStar.nearestTarget(robot, src, cibles).getTarget();
+                erreursRobot += components.isConnected(src, cible) ? 0 : 1;
+                erreursRobot += (aStar.getExpandedNodes() > 0) ? 0 : 1;
+            } catch (final IllegalStateException e) {
+                erreursRobot += atteignable ? 1 : 0;
+                erreursRobot += (aStar.getExpandedNodes() == 0) ? 0 : 1;
+            }
+
+            System.out.println(robot.getType() + ": " + components.getNbComponents() + " composantes en "
+                    + duree / 1000 + " µs, requêtes rejetées " + rejets + "/" + NB_REQUETES
+                    + ", positions explorées pour les rejets " + exploreesRejets + ", erreurs " + erreursRobot);
+            erreurs += erreursRobot;
+        }
+        System.out.println("erreurs " + erreurs);
+    }
+}
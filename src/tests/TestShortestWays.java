@@ -0,0 +1,78 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.pathfinding.AStar;
+import game.pathfinding.Path;
+import game.pathfinding.Pathfinding;
+import game.robots.Robot;
+
+/**
+ * Compare les chemins calculés en parallèle par shortestWays à ceux calculés un
+ * par un avec la même instance. Le nombre de positions explorées lu par chaque
+ * thread juste après sa recherche doit être celui de la même recherche faite
+ * seule.
+ */
+public class TestShortestWays {
+    private static final int NB_REQUETES = 400;
+
+    public static void main(String[] args) {
+        final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation
+                .getDonneesSimulation(new String[]{"cartes/spiralOfMadness-50x50.map"});
+        final Carte carte = donneesSimulation.getCarte();
+        final AStar aStar = new AStar(donneesSimulation);
+        final ArrayList<Robot> robots = new ArrayList<Robot>();
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+
+        final Random random = new Random(0);
+        final ArrayList<Pathfinding.Query> queries = new ArrayList<Pathfinding.Query>();
+        for (int i = 0; i < NB_REQUETES; i++) {
+            queries.add(new Pathfinding.Query(robots.get(random.nextInt(robots.size())),
+                    random.nextInt(carte.getNbLignes() * carte.getNbColonnes()),
+                    random.nextInt(carte.getNbLignes() * carte.getNbColonnes())));
+        }
+
+        final Path[] attendus = new Path[NB_REQUETES];
+        final int[] exploresAttendus = new int[NB_REQUETES];
+        for (int i = 0; i < NB_REQUETES; i++) {
+            final Pathfinding.Query query = queries.get(i);
+            try {
+                attendus[i] = aStar.shortestWay(query.getRobot(), query.getSrc(), query.getDest());
+            } catch (final IllegalStateException e) {
+                attendus[i] = null;
+            }
+            exploresAttendus[i] = aStar.getExpandedNodes();
+        }
+
+        int erreurs = 0;
+        final List<Path> paths = aStar.shortestWays(queries);
+        for (int i = 0; i < NB_REQUETES; i++) {
+            if ((attendus[i] == null) != (paths.get(i) == null) || (attendus[i] != null
+                    && !Arrays.equals(attendus[i].toArray(), paths.get(i).toArray()))) {
+                erreurs++;
+            }
+        }
+
+        final int[] explores = IntStream.range(0, NB_REQUETES).parallel().map(i -> {
+            final Pathfinding.Query query = queries.get(i);
+            try {
+                aStar.shortestWay(query.getRobot(), query.getSrc(), query.getDest());
+            } catch (final IllegalStateException e) {
+                // même compte que la recherche seule
+            }
+            return aStar.getExpandedNodes();
+        }).toArray();
+        final long differents = IntStream.range(0, NB_REQUETES).filter(i -> explores[i] != exploresAttendus[i])
+                .count();
+        erreurs += differents;
+
+        System.out.println(NB_REQUETES + " requêtes, " + Arrays.stream(attendus).filter(p -> p == null).count()
+                + " sans chemin, comptes de positions explorées différents " + differents + ", erreurs " + erreurs);
+    }
+}
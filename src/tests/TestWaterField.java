@@ -0,0 +1,107 @@
+package tests;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.EnumMap;
+
+import game.Carte;
+import game.DonneesSimulation;
+import game.pathfinding.CostGrid;
+import game.pathfinding.DistanceField;
+import game.pathfinding.DistanceFieldManager;
+import game.pathfinding.Path;
+import game.robots.Robot;
+
+/**
+ * Vérifie le champ de distance vers les points d'eau de chaque robot: la
+ * direction stockée pour chaque case mène à une voisine dont le coût est celui
+ * de la case moins le coût du pas, le chemin suivi a pour durée le coût de sa
+ * case de départ. Le champ est partagé par les copies de DonneesSimulation
+ * faites pour les restarts. Après un changement des vitesses d'un type de
+ * robot, le champ est recalculé et l'ancien n'est plus gardé.
+ */
+public class TestWaterField {
+    public static void main(String[] args) {
+        final String[] cartes = {"cartes/carteSujet.map", "cartes/desertOfDeath-20x20.map",
+                "cartes/mushroomOfHell-20x20.map", "cartes/spiralOfMadness-50x50.map"};
+        int erreurs = 0;
+        for (final String nom : cartes) {
+            final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation
+                    .getDonneesSimulation(new String[]{nom});
+            final DonneesSimulation copie = new DonneesSimulation(donneesSimulation);
+            final DistanceFieldManager distanceFieldManager = donneesSimulation.getDistanceFieldManager();
+            final Carte carte = donneesSimulation.getCarte();
+
+            final ArrayList<Robot> robots = new ArrayList<Robot>();
+            donneesSimulation.getRobots().values().forEach(robots::addAll);
+            for (final Robot robot : robots) {
+                final DistanceField waterField = distanceFieldManager.getWaterField(robot);
+                if (waterField == null)
+                    continue;
+                if (copie.getDistanceFieldManager().getWaterField(robot) != waterField) {
+                    erreurs++;
+                    System.out.println("Champ recalculé pour la copie");
+                }
+                final CostGrid costGrid = waterField.getCostGrid();
+                int erreursRobot = 0;
+                long longueurs = 0;
+                for (int position = 0; position < carte.getNbLignes() * carte.getNbColonnes(); position++) {
+                    final long cost = waterField.getCost(position);
+                    final int direction = waterField.getDirection(position);
+                    if (cost == 0 || cost == DistanceField.UNREACHABLE) {
+                        erreursRobot += (direction == DistanceField.NO_DIRECTION) ? 0 : 1;
+                        continue;
+                    }
+                    final int next = waterField.getNextStep(position);
+                    if (direction == DistanceField.NO_DIRECTION
+                            || waterField.getCost(next) + costGrid.getCost(position, direction) != cost) {
+                        erreursRobot++;
+                        continue;
+                    }
+                    final Path path = waterField.getPath(position);
+                    longueurs += path.getNbSteps();
+                    if (path.getDuration() != cost || waterField.getCost(path.getLast()) != 0) {
+                        erreursRobot++;
+                    }
+                }
+                System.out.println(nom + ", " + robot.getType() + ": erreurs " + erreursRobot + ", pas parcourus "
+                        + longueurs);
+                erreurs += erreursRobot;
+            }
+        }
+        erreurs += testChangementVitesses();
+        System.out.println("erreurs " + erreurs);
+    }
+
+    /**
+     * @return nombre d'erreurs
+     */
+    private static int testChangementVitesses() {
+        final DonneesSimulation donneesSimulation = InterfaceDonneesSimulation
+                .getDonneesSimulation(new String[]{"cartes/carteSujet.map"});
+        final DistanceFieldManager distanceFieldManager = donneesSimulation.getDistanceFieldManager();
+        final ArrayList<Robot> robots = new ArrayList<Robot>();
+        donneesSimulation.getRobots().values().forEach(robots::addAll);
+        final Robot robot = robots.stream().filter(r -> distanceFieldManager.getWaterField(r) != null).findFirst()
+                .get();
+        final int incendie = donneesSimulation.getIncendies().keySet().iterator().next();
+
+        final WeakReference<DistanceField> ancienChampEau = new WeakReference<DistanceField>(
+                distanceFieldManager.getWaterField(robot));
+        final WeakReference<DistanceField> ancienChampIncendie = new WeakReference<DistanceField>(
+                distanceFieldManager.getFireField(robot, incendie));
+        robot.getRobotType().setTerrainVitesse(new EnumMap<>(robot.getRobotType().getTerrainVitesse()));
+
+        int erreurs = 0;
+        final DistanceField champEau = distanceFieldManager.getWaterField(robot);
+        final DistanceField champIncendie = distanceFieldManager.getFireField(robot, incendie);
+        if (champEau == ancienChampEau.get() || champIncendie == ancienChampIncendie.get()) {
+            erreurs++;
+        }
+        System.gc();
+        final boolean liberes = ancienChampEau.get() == null && ancienChampIncendie.get() == null;
+        erreurs += liberes ? 0 : 1;
+        System.out.println("Changement des vitesses de " + robot.getType() + ": anciens champs libérés " + liberes);
+        return erreurs;
+    }
+}